@@ -5,6 +5,7 @@ import com.example.foodapp.service.ProductService;
 import com.example.foodapp.service.StripeService;
 import com.example.foodapp.service.PaypalService;
 import com.example.foodapp.service.PaymentService;
+import com.example.foodapp.service.TopSellersService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -23,6 +24,7 @@ public class AiChatService {
     private final StripeService stripeService;   // optional future
     private final PaypalService paypalService;   // optional future
     private final PaymentService paymentService; // optional future
+    private final TopSellersService topSellers;
 
     public record ChatReply(String reply, int cartCount) {}
 
@@ -30,7 +32,7 @@ public class AiChatService {
 
     public ChatReply chat(String sessionId, String userText, HttpSession session) {
         if (userText == null || userText.isBlank()) {
-            return new ChatReply("Tell me what you need — e.g. “find cumin”, “add turmeric 2”, or “checkout”.", cartQty(sessionId));
+            return new ChatReply("Tell me what you need — e.g. “find cumin”, “add turmeric 2”, or “checkout”.", cartQty(session));
         }
 
         // 1) Load short history (assistant/user messages only)
@@ -67,6 +69,18 @@ public class AiChatService {
                         "List current cart items.",
                         Map.of("type","object","properties", Map.of(), "required", List.of())
                 ),
+                new LlmClient.ToolSpec(
+                        "bestSellers",
+                        "Most popular products by units sold over the last N days (7, 30 or 90).",
+                        Map.of(
+                                "type","object",
+                                "properties", Map.of(
+                                        "days", Map.of("type","integer","enum",List.of(7, 30, 90),"default",7),
+                                        "limit", Map.of("type","integer","minimum",1,"maximum",10,"default",5)
+                                ),
+                                "required", List.of()
+                        )
+                ),
                 new LlmClient.ToolSpec(
                         "checkoutUrl",
                         "Return the URL where user can finish payment.",
@@ -81,7 +95,7 @@ public class AiChatService {
         if (result.toolCalls() != null && !result.toolCalls().isEmpty()) {
             List<Map<String,String>> toolResponses = new ArrayList<>();
             for (var call : result.toolCalls()) {
-                toolResponses.add(executeTool(sessionId, call));
+                toolResponses.add(executeTool(session, call));
             }
 
             // Feed tool outputs back to the model
@@ -102,11 +116,11 @@ public class AiChatService {
                 Map.of("role","assistant","content", reply)
         ), 12));
 
-        return new ChatReply(reply, cartQty(sessionId));
+        return new ChatReply(reply, cartQty(session));
     }
 
     // ---- tools executor ----
-    private Map<String,String> executeTool(String sessionId, LlmClient.ToolCall call) {
+    private Map<String,String> executeTool(HttpSession session, LlmClient.ToolCall call) {
         try {
             switch (call.name()) {
                 case "searchProducts" -> {
@@ -123,12 +137,12 @@ public class AiChatService {
                 case "addToCart" -> {
                     long productId = ((Number) call.args().get("productId")).longValue();
                     int qty = ((Number) call.args().getOrDefault("qty", 1)).intValue();
-                    cartService.add(sessionId, productId, Math.max(1, Math.min(99, qty)));
-                    int count = cartQty(sessionId);
+                    cartService.add(session, productId, Math.max(1, Math.min(99, qty)));
+                    int count = cartQty(session);
                     return Map.of("role","tool", "name","addToCart", "content", "OK (cart items: "+count+")");
                 }
                 case "cartItems" -> {
-                    var lines = cartService.items(sessionId);
+                    var lines = cartService.items(session);
                     String content = lines.isEmpty()
                             ? "Cart is empty."
                             : lines.stream()
@@ -136,9 +150,21 @@ public class AiChatService {
                             .collect(Collectors.joining("\n"));
                     return Map.of("role","tool","name","cartItems","content", content);
                 }
+                case "bestSellers" -> {
+                    // served from the in-memory sales window, same ranking as the home page
+                    int days = ((Number) call.args().getOrDefault("days", 7)).intValue();
+                    int limit = ((Number) call.args().getOrDefault("limit", 5)).intValue();
+                    var top = topSellers.top(Math.max(1, Math.min(10, limit)), days, null);
+                    String text = top.isEmpty()
+                            ? "No sales in that period yet."
+                            : top.stream()
+                            .map(p -> p.getId()+": "+p.getName()+" — $"+fmt(p.getPrice()))
+                            .collect(Collectors.joining("\n"));
+                    return Map.of("role","tool", "name","bestSellers", "content", text);
+                }
                 case "checkoutUrl" -> {
                     // If you need to freeze to an order and redirect, do that here:
-                    // Long orderId = cartService.freezeToOrder(sessionId);
+                    // Long orderId = cartService.freezeToOrder(session);
                     // String url = "/payment/checkout?orderId=" + orderId;
                     String url = "/payment/checkout";
                     return Map.of("role","tool","name","checkoutUrl","content", url);
@@ -151,9 +177,9 @@ public class AiChatService {
     }
 
     // ---- helpers ----
-    private int cartQty(String sessionId) {
+    private int cartQty(HttpSession session) {
         try {
-            return cartService.items(sessionId).stream().mapToInt(CartService.CartLine::qty).sum();
+            return cartService.items(session).stream().mapToInt(CartService.CartLine::qty).sum();
         } catch (Exception e) { return 0; }
     }
     private static String fmt(BigDecimal b) { return b==null? "0.00" : b.setScale(2, BigDecimal.ROUND_HALF_UP).toString(); }
@@ -174,7 +200,8 @@ public class AiChatService {
     private static String systemPrompt() {
         return """
         You are Spice AI for an online spice shop. Be concise, friendly and helpful.
-        You can call tools to search products, add to cart, show the cart and give a checkout URL.
+        You can call tools to search products, list best sellers, add to cart, show the cart and give a checkout URL.
+        For "what's popular" or best-seller questions, call bestSellers instead of guessing.
         When you mention products, include name and price. Prefer tool results over guessing.
         If a user asks to pay, recommend /payment/checkout and call checkoutUrl tool.
         """;
@@ -1,9 +1,11 @@
 package com.example.foodapp.Ai;
 
+import jakarta.servlet.http.HttpSession;
+
 public interface CartService {
     record CartLine(Long productId, String productName, int qty, java.math.BigDecimal lineTotal){}
-    void add(String sessionId, Long productId, int qty);
-    java.util.List<CartLine> items(String sessionId);
-    java.math.BigDecimal total(String sessionId);
-    Long freezeToOrder(String sessionId); // creates Order, empties cart
+    void add(HttpSession session, Long productId, int qty);
+    java.util.List<CartLine> items(HttpSession session);
+    java.math.BigDecimal total(HttpSession session);
+    Long freezeToOrder(HttpSession session); // creates Order, empties cart
 }
@@ -0,0 +1,56 @@
+// src/main/java/com/example/foodapp/Ai/StoredCartService.java
+package com.example.foodapp.Ai;
+
+import com.example.foodapp.model.Product;
+import com.example.foodapp.service.CartStore;
+import com.example.foodapp.service.CatalogCache;
+import com.example.foodapp.util.CartItem;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Chat assistant cart: the shopper's real cart from {@link CartStore}, so chat adds show up on /cart. */
+@Service
+@Primary
+@RequiredArgsConstructor
+public class StoredCartService implements CartService {
+
+    private final CatalogCache catalog;
+    private final CartStore cartStore;
+
+    @Override
+    public void add(HttpSession session, Long productId, int qty) {
+        if (session == null || productId == null || qty <= 0) return;
+        Product p = catalog.current().product(productId);
+        if (p == null) return;
+        cartStore.add(session, p, null, qty);
+    }
+
+    @Override
+    public List<CartLine> items(HttpSession session) {
+        List<CartLine> out = new ArrayList<>();
+        for (CartItem it : cartStore.current(session).getItems()) {
+            out.add(new CartLine(it.getProductId(), it.getName(), it.getQty(), it.getSubtotal()));
+        }
+        return out;
+    }
+
+    @Override
+    public BigDecimal total(HttpSession session) {
+        return items(session).stream()
+                .map(CartLine::lineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public Long freezeToOrder(HttpSession session) {
+        // Orders are placed through /order/place; here we only empty the cart.
+        cartStore.clear(session);
+        return null;
+    }
+}
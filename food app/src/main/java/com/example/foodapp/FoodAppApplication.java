@@ -1,9 +1,11 @@
 package com.example.foodapp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class FoodAppApplication {
     public static void main(String[] args) {
         SpringApplication.run(FoodAppApplication.class, args);
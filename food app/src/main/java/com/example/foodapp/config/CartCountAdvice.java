@@ -1,8 +1,8 @@
 // src/main/java/com/example/foodapp/web/CartCountAdvice.java
 package com.example.foodapp.config;
 
-import com.example.foodapp.util.Cart;
-import com.example.foodapp.util.CartItem;
+import com.example.foodapp.service.CartStore;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -12,13 +12,15 @@ import org.springframework.ui.Model;
 @ControllerAdvice
 public class CartCountAdvice {
 
+    private final CartStore cartStore;
+
+    public CartCountAdvice(CartStore cartStore) {
+        this.cartStore = cartStore;
+    }
+
     @ModelAttribute
-    public void addCartCount(Model model, HttpSession session) {
-        int count = 0;
-        Object c = session.getAttribute("CART");
-        if (c instanceof Cart cart && cart.getItems() != null) {
-            count = cart.getItems().stream().mapToInt(CartItem::getQty).sum();
-        }
-        model.addAttribute("cartCount", count);
+    public void addCartCount(Model model, HttpSession session, HttpServletRequest req) {
+        if (!ViewHandlers.rendersView(req)) return;
+        model.addAttribute("cartCount", cartStore.count(session));
     }
 }
@@ -0,0 +1,161 @@
+package com.example.foodapp.config;
+
+import com.example.foodapp.web.SessionAdmin;
+import com.example.foodapp.web.SessionUser;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Session attribute codec: one tag byte, then a hand-written body for the values this app keeps
+ * in sessions (ids, strings, {@link SessionUser}, {@link SessionAdmin}, chat history), and plain
+ * Java serialization for anything else (e.g. the Spring Security context).
+ * A SessionUser is ~40 bytes here versus ~300 with Java serialization.
+ */
+public class CompactSessionSerializer {
+
+    private static final byte NULL = 0, LONG = 1, INT = 2, BOOL = 3, STRING = 4,
+            SESSION_USER = 5, SESSION_ADMIN = 6, STRING_MAPS = 7, JAVA = 127;
+
+    private final DefaultSerializer jdk = new DefaultSerializer();
+    private final DefaultDeserializer jdkIn;
+
+    public CompactSessionSerializer(ClassLoader classLoader) {
+        this.jdkIn = new DefaultDeserializer(classLoader);
+    }
+
+    public byte[] serialize(Object value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Long l) {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            } else if (value instanceof Integer i) {
+                out.writeByte(INT);
+                out.writeInt(i);
+            } else if (value instanceof Boolean b) {
+                out.writeByte(BOOL);
+                out.writeBoolean(b);
+            } else if (value instanceof String s) {
+                out.writeByte(STRING);
+                writeString(out, s);
+            } else if (value instanceof SessionUser u) {
+                out.writeByte(SESSION_USER);
+                writeLong(out, u.id());
+                writeString(out, u.firstName());
+                writeString(out, u.lastName());
+                writeString(out, u.email());
+            } else if (value instanceof SessionAdmin a) {
+                out.writeByte(SESSION_ADMIN);
+                writeLong(out, a.id());
+                writeString(out, a.username());
+            } else if (isStringMapList(value)) {
+                out.writeByte(STRING_MAPS);
+                List<?> list = (List<?>) value;
+                out.writeShort(list.size());
+                for (Object o : list) {
+                    Map<?, ?> m = (Map<?, ?>) o;
+                    out.writeShort(m.size());
+                    for (Map.Entry<?, ?> e : m.entrySet()) {
+                        writeString(out, (String) e.getKey());
+                        writeString(out, (String) e.getValue());
+                    }
+                }
+            } else {
+                out.writeByte(JAVA);
+                out.flush();
+                jdk.serialize(value, bytes);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Object deserialize(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte tag = in.readByte();
+            return switch (tag) {
+                case NULL -> null;
+                case LONG -> in.readLong();
+                case INT -> in.readInt();
+                case BOOL -> in.readBoolean();
+                case STRING -> readString(in);
+                case SESSION_USER -> new SessionUser(readLong(in), readString(in), readString(in), readString(in));
+                case SESSION_ADMIN -> new SessionAdmin(readLong(in), readString(in));
+                case STRING_MAPS -> {
+                    int n = in.readUnsignedShort();
+                    List<Map<String, String>> list = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        int size = in.readUnsignedShort();
+                        Map<String, String> m = new LinkedHashMap<>();
+                        for (int k = 0; k < size; k++) m.put(readString(in), readString(in));
+                        list.add(m);
+                    }
+                    yield list;
+                }
+                case JAVA -> jdkIn.deserialize(in);
+                default -> throw new IllegalStateException("Unknown session value tag " + tag);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Size the same value would take with plain Java serialization (for the size stats). */
+    public int javaSize(Object value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            jdk.serialize(value, bytes);
+            return bytes.size();
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isStringMapList(Object value) {
+        if (!(value instanceof List<?> list) || list.isEmpty() || list.size() > 0xFFFF) return false;
+        for (Object o : list) {
+            if (!(o instanceof Map<?, ?> m) || m.size() > 0xFFFF) return false;
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                if (!(e.getKey() instanceof String) || !(e.getValue() instanceof String)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeLong(DataOutputStream out, Long v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v != null) out.writeLong(v);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
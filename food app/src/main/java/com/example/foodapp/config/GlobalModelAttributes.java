@@ -1,6 +1,7 @@
 package com.example.foodapp.config;
 
 import com.example.foodapp.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -14,8 +15,10 @@ public class GlobalModelAttributes {
         this.categoryService = categoryService;
     }
     @ModelAttribute
-    public void addCategories(Model model) {
+    public void addCategories(Model model, HttpServletRequest req) {
+        if (!ViewHandlers.rendersView(req)) return;
         try {
+            // served from the catalog snapshot, no query
             model.addAttribute("categories", categoryService.findAll());
         } catch (Exception e) {
             // ignore
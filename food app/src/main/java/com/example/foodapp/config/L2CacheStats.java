@@ -0,0 +1,48 @@
+package com.example.foodapp.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Hit/miss/put counts per second-level cache region, from Hibernate statistics. */
+@Component
+public class L2CacheStats {
+
+    private final EntityManagerFactory emf;
+
+    public L2CacheStats(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    public Map<String, Object> snapshot() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", stats.isStatisticsEnabled());
+        out.put("queryExecutions", stats.getQueryExecutionCount());
+        out.put("queryCacheHits", stats.getQueryCacheHitCount());
+        out.put("queryCacheMisses", stats.getQueryCacheMissCount());
+        out.put("entityLoads", stats.getEntityLoadCount());
+        out.put("statementsPrepared", stats.getPrepareStatementCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = stats.getDomainDataRegionStatistics(name);
+            if (r == null) continue;
+            long hits = r.getHitCount(), misses = r.getMissCount();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("hits", hits);
+            row.put("misses", misses);
+            row.put("puts", r.getPutCount());
+            row.put("hitRatio", hits + misses == 0 ? 0d : (double) hits / (hits + misses));
+            row.put("entriesInMemory", r.getElementCountInMemory());
+            regions.put(name, row);
+        }
+        out.put("regions", regions);
+        return out;
+    }
+}
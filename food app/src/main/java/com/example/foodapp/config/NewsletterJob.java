@@ -1,38 +1,35 @@
 // src/main/java/com/example/foodapp/jobs/NewsletterJob.java
 package com.example.foodapp.config;
 
-import com.example.foodapp.model.Subscriber;
-import com.example.foodapp.repository.SubscriberRepository;
-import com.example.foodapp.service.EmailService;
 import com.example.foodapp.service.AnalyticsService; // your top products method
+import com.example.foodapp.service.NewsletterCampaignService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
 import java.util.List;
 import java.util.Map;
 
 @Component
 public class NewsletterJob {
-    private final SubscriberRepository subs;
     private final AnalyticsService analytics;
-    private final EmailService mail;
+    private final NewsletterCampaignService campaigns;
 
-    public NewsletterJob(SubscriberRepository subs, @Qualifier("analyticsServiceImpl") AnalyticsService analytics, EmailService mail) {
-        this.subs = subs;
+    public NewsletterJob(@Qualifier("analyticsServiceImpl") AnalyticsService analytics, NewsletterCampaignService campaigns) {
         this.analytics = analytics;
-        this.mail = mail;
+        this.campaigns = campaigns;
     }
 
 
     // Every Monday 10:00am server time
     @Scheduled(cron = "0 0 10 * * MON")
     public void weeklyDigest() {
+        LocalDate today = LocalDate.now();
+        String key = "weekly-" + today.get(IsoFields.WEEK_BASED_YEAR) + "-W" + today.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
         List<?> products = analytics.topSellers(4, 30);
-        for (Subscriber s : subs.findByStatus(Subscriber.Status.ACTIVE)) {
-            String unsub = "{{your-site}}/newsletter/unsubscribe?token=" + s.getUnsubToken();
-            mail.sendTemplate(s.getEmail(), "Fresh Spice Picks This Week",
-                    "email/newsletter", Map.of("products", products, "unsubLink", unsub));
-        }
+        // rendered once; the campaign fills in each subscriber's unsubscribe link
+        campaigns.start(key, "Fresh Spice Picks This Week", "email/newsletter", Map.of("products", products));
     }
 }
@@ -0,0 +1,126 @@
+package com.example.foodapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the Postgres-only search objects that JPA annotations can't express:
+ * pg_trgm GIN indexes on lower(...) so "%term%" searches don't scan the table, and the
+ * weighted product.search_vector (name A, category B, description C) kept current by triggers.
+ * Every statement is idempotent; on other databases this does nothing and
+ * {@link #productSearchReady()} stays false so callers use their in-process fallback.
+ */
+@Component
+public class PostgresSearchIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresSearchIndexes.class);
+
+    private static final List<String> ORDER_STATEMENTS = List.of(
+            "create extension if not exists pg_trgm",
+            // order search (admin + My Orders)
+            "create index if not exists idx_orders_confirmation_trgm on orders using gin (lower(confirmation_number) gin_trgm_ops)",
+            "create index if not exists idx_orders_customer_trgm on orders using gin (lower(customer_name) gin_trgm_ops)",
+            "create index if not exists idx_orders_address_trgm on orders using gin (lower(address) gin_trgm_ops)",
+            "create index if not exists idx_orders_street_trgm on orders using gin (lower(street) gin_trgm_ops)",
+            "create index if not exists idx_orders_city_trgm on orders using gin (lower(city) gin_trgm_ops)",
+            "create index if not exists idx_order_item_name_trgm on order_item using gin (lower(product_name) gin_trgm_ops)",
+            "create index if not exists idx_order_item_order on order_item (order_id)"
+    );
+
+    private static final List<String> PRODUCT_STATEMENTS = List.of(
+            "alter table product add column if not exists search_vector tsvector",
+            """
+            create or replace function product_search_vector() returns trigger as $$
+            begin
+              new.search_vector :=
+                   setweight(to_tsvector('simple', coalesce(new.name, '')), 'A')
+                || setweight(to_tsvector('simple', coalesce((select c.name from category c where c.id = new.category_id), '')), 'B')
+                || setweight(to_tsvector('simple', coalesce(new.description, '')), 'C');
+              return new;
+            end
+            $$ language plpgsql
+            """,
+            "drop trigger if exists trg_product_search_vector on product",
+            """
+            create trigger trg_product_search_vector
+              before insert or update of name, description, category_id on product
+              for each row execute function product_search_vector()
+            """,
+            // a category rename re-touches its products so their vectors pick up the new name
+            """
+            create or replace function category_search_vector_touch() returns trigger as $$
+            begin
+              if new.name is distinct from old.name then
+                update product set name = name where category_id = new.id;
+              end if;
+              return new;
+            end
+            $$ language plpgsql
+            """,
+            "drop trigger if exists trg_category_search_vector on category",
+            """
+            create trigger trg_category_search_vector
+              after update of name on category
+              for each row execute function category_search_vector_touch()
+            """,
+            "update product set name = name where search_vector is null",
+            "create index if not exists idx_product_search_vector on product using gin (search_vector)",
+            "create index if not exists idx_product_name_trgm on product using gin (lower(name) gin_trgm_ops)",
+            "create index if not exists idx_product_name_prefix on product (lower(name) text_pattern_ops)"
+    );
+
+    private final JdbcTemplate jdbc;
+    private volatile Boolean postgres;
+    private volatile boolean productSearchReady;
+
+    public PostgresSearchIndexes(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if (!isPostgres()) return;
+        run(ORDER_STATEMENTS);
+        productSearchReady = run(PRODUCT_STATEMENTS);
+        log.info("Postgres product search {}", productSearchReady ? "enabled" : "unavailable, using in-process fallback");
+    }
+
+    /** True once the tsvector column, triggers and indexes exist. */
+    public boolean productSearchReady() {
+        return productSearchReady;
+    }
+
+    public boolean isPostgres() {
+        Boolean p = postgres;
+        if (p != null) return p;
+        try {
+            String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            p = product != null && product.toLowerCase().contains("postgres");
+        } catch (RuntimeException e) {
+            return false;
+        }
+        postgres = p;
+        return p;
+    }
+
+    private boolean run(List<String> statements) {
+        boolean ok = true;
+        for (String sql : statements) {
+            try {
+                jdbc.execute(sql);
+            } catch (RuntimeException e) {
+                // e.g. no permission to create the extension; search still works, just unindexed
+                log.warn("Skipping search DDL [{}]: {}", sql.strip().lines().findFirst().orElse(sql), e.getMessage());
+                ok = false;
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.foodapp.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate second-level cache (JCache, Ehcache on heap) for the read-mostly reference entities:
+ * Category, Product (+ variants), Coupon and PaymentMethod, plus the by-code lookup queries.
+ *
+ * Every region is sized (entries) and has a TTL, so eviction is LRU within the size and stale
+ * rows age out even if something bypasses Hibernate. Writes through JPA keep regions current
+ * (READ_WRITE); JPQL bulk updates (stock decrements) invalidate the whole affected region.
+ * Turn off with {@code app.l2-cache.enabled=false}; hit/miss counts are at /admin/cache/stats.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.l2-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    /** Entity, collection and query regions with their max entries. */
+    static final Map<String, Long> REGIONS = new LinkedHashMap<>();
+    static {
+        REGIONS.put("category", 500L);
+        REGIONS.put("product", 5_000L);
+        REGIONS.put("productVariant", 20_000L);
+        REGIONS.put("product.variants", 5_000L);
+        REGIONS.put("coupon", 2_000L);
+        REGIONS.put("coupon.byCode", 2_000L);
+        REGIONS.put("paymentMethod", 2_000L);
+        REGIONS.put("paymentMethod.byCode", 500L);
+        REGIONS.put("default-query-results-region", 1_000L);
+    }
+
+    /** Must outlive every query result, so it is never expired. */
+    static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.l2-cache.ttl-minutes:30}") long ttlMinutes) {
+        CachingProvider provider = Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider");
+        CacheManager cm = provider.getCacheManager(provider.getDefaultURI(), SecondLevelCacheConfig.class.getClassLoader());
+
+        REGIONS.forEach((region, entries) -> cm.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(entries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofMinutes(ttlMinutes))))));
+
+        cm.createCache(TIMESTAMPS_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(10_000))
+                        .withExpiry(ExpiryPolicyBuilder.noExpiration())));
+        return cm;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return props -> {
+            props.put("hibernate.cache.use_second_level_cache", "true");
+            props.put("hibernate.cache.use_query_cache", "true");
+            props.put("hibernate.cache.region.factory_class", "jcache");
+            props.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            // a region we forgot to size fails at startup instead of silently growing
+            props.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            props.put("hibernate.generate_statistics", "true");
+        };
+    }
+}
@@ -96,7 +96,7 @@ package com.example.foodapp.config;
 import com.example.foodapp.service.CustomOAuth2UserService;
 import com.example.foodapp.service.LoginSuccessHandler;
 import com.example.foodapp.service.OAuth2LoginSuccessHandler;
-import com.example.foodapp.service.UserService;
+import com.example.foodapp.service.CurrentUserService;
 import com.example.foodapp.web.SyncSessionUserFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -115,16 +115,16 @@ public class SecurityConfig {
     private final CustomOAuth2UserService oAuth2UserService;
     private final OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler;
     private final LoginSuccessHandler loginSuccessHandler;
-    private final UserService userService; // <-- needed for SyncSessionUserFilter
+    private final CurrentUserService currentUsers; // <-- needed for SyncSessionUserFilter
 
     public SecurityConfig(CustomOAuth2UserService oAuth2UserService,
                           OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler,
                           LoginSuccessHandler loginSuccessHandler,
-                          UserService userService) {
+                          CurrentUserService currentUsers) {
         this.oAuth2UserService = oAuth2UserService;
         this.oAuth2LoginSuccessHandler = oAuth2LoginSuccessHandler;
         this.loginSuccessHandler = loginSuccessHandler;
-        this.userService = userService;
+        this.currentUsers = currentUsers;
     }
 
     @Bean
@@ -233,7 +233,7 @@ public class SecurityConfig {
                 .logout(l -> l.logoutSuccessUrl("/").permitAll());
 
         // Keep session "USER" in sync after any successful auth
-        http.addFilterAfter(new SyncSessionUserFilter(userService), SecurityContextHolderFilter.class);
+        http.addFilterAfter(new SyncSessionUserFilter(currentUsers), SecurityContextHolderFilter.class);
 
         return http.build();
     }
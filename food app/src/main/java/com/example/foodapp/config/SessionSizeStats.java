@@ -0,0 +1,92 @@
+package com.example.foodapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session size measurements: bytes written per attribute type with the compact codec, against a
+ * sample of what Java serialization would have written for the same values, plus (JDBC store)
+ * the current average bytes per stored session.
+ */
+@Component
+public class SessionSizeStats {
+
+    private static final int SAMPLE_EVERY = 20;
+
+    private record Totals(LongAdder writes, LongAdder bytes, LongAdder sampled, LongAdder sampledCompact,
+                          LongAdder sampledJava) {
+        Totals() {
+            this(new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    private final Map<String, Totals> byType = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final JdbcTemplate jdbc;
+
+    @Value("${app.session.store:jdbc}")
+    private String store;
+
+    public SessionSizeStats(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    void record(Object value, int compactBytes, CompactSessionSerializer serializer) {
+        String type = value == null ? "null" : value.getClass().getSimpleName();
+        Totals t = byType.computeIfAbsent(type, k -> new Totals());
+        t.writes().increment();
+        t.bytes().add(compactBytes);
+        if (value != null && seq.incrementAndGet() % SAMPLE_EVERY == 0) {
+            int javaBytes = serializer.javaSize(value);
+            if (javaBytes > 0) {
+                t.sampled().increment();
+                t.sampledCompact().add(compactBytes);
+                t.sampledJava().add(javaBytes);
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> types = new TreeMap<>();
+        byType.forEach((type, t) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            long writes = t.writes().sum();
+            m.put("writes", writes);
+            m.put("avgBytes", writes == 0 ? 0 : t.bytes().sum() / writes);
+            long sampled = t.sampled().sum();
+            if (sampled > 0) {
+                m.put("sampledAvgCompactBytes", t.sampledCompact().sum() / sampled);
+                m.put("sampledAvgJavaBytes", t.sampledJava().sum() / sampled);
+            }
+            types.put(type, m);
+        });
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("store", store);
+        out.put("attributeTypes", types);
+        if ("jdbc".equalsIgnoreCase(store)) {
+            try {
+                Map<String, Object> row = jdbc.queryForMap("""
+                        select count(distinct session_primary_id) as sessions,
+                               coalesce(sum(octet_length(attribute_bytes)), 0) as bytes
+                          from spring_session_attributes
+                        """);
+                long sessions = ((Number) row.get("sessions")).longValue();
+                long bytes = ((Number) row.get("bytes")).longValue();
+                out.put("storedSessions", sessions);
+                out.put("avgBytesPerSession", sessions == 0 ? 0 : bytes / sessions);
+            } catch (RuntimeException e) {
+                out.put("storedSessions", "unavailable: " + e.getMessage());
+            }
+        }
+        return out;
+    }
+}
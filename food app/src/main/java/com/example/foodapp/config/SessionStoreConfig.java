@@ -0,0 +1,132 @@
+package com.example.foodapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP session storage, chosen with {@code app.session.store}:
+ * <ul>
+ *   <li>{@code jdbc} (default) — spring_session tables in the application database, so any node
+ *       can serve any request and sessions survive restarts;</li>
+ *   <li>{@code local} — an in-memory map for local runs and tests (single node only).</li>
+ * </ul>
+ * Attribute values are written with {@link CompactSessionSerializer}; sessions are expected to
+ * hold ids and small snapshots only (cart id, {@code SessionUser}, {@code SessionAdmin}).
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStoreConfig.class);
+
+    @Bean
+    public CompactSessionSerializer compactSessionSerializer() {
+        return new CompactSessionSerializer(SessionStoreConfig.class.getClassLoader());
+    }
+
+    /** Picked up by name by the JDBC session repository for attribute (de)serialization. */
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService(CompactSessionSerializer serializer,
+                                                            SessionSizeStats stats) {
+        GenericConversionService conversion = new GenericConversionService();
+        conversion.addConverter(Object.class, byte[].class, value -> {
+            byte[] bytes = serializer.serialize(value);
+            stats.record(value, bytes.length, serializer);
+            return bytes;
+        });
+        conversion.addConverter(byte[].class, Object.class, serializer::deserialize);
+        return conversion;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc", matchIfMissing = true)
+    @EnableJdbcHttpSession
+    static class JdbcStore {
+
+        @Bean
+        JdbcSessionSchema jdbcSessionSchema(JdbcTemplate jdbc, PostgresSearchIndexes db) {
+            return new JdbcSessionSchema(jdbc, db);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "local")
+    @EnableSpringHttpSession
+    static class LocalStore {
+
+        @Bean
+        MapSessionRepository sessionRepository() {
+            MapSessionRepository repo = new MapSessionRepository(new ConcurrentHashMap<>());
+            repo.setDefaultMaxInactiveInterval(Duration.ofMinutes(30));
+            return repo;
+        }
+    }
+
+    /**
+     * Creates the spring_session tables before the web server starts taking requests.
+     * Idempotent; uses bytea on Postgres and blob elsewhere.
+     */
+    static class JdbcSessionSchema implements InitializingBean {
+
+        private final JdbcTemplate jdbc;
+        private final PostgresSearchIndexes db;
+
+        JdbcSessionSchema(JdbcTemplate jdbc, PostgresSearchIndexes db) {
+            this.jdbc = jdbc;
+            this.db = db;
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            String blob = db.isPostgres() ? "bytea" : "blob";
+            List<String> statements = List.of(
+                    """
+                    create table if not exists spring_session (
+                      primary_id char(36) not null,
+                      session_id char(36) not null,
+                      creation_time bigint not null,
+                      last_access_time bigint not null,
+                      max_inactive_interval int not null,
+                      expiry_time bigint not null,
+                      principal_name varchar(100),
+                      constraint spring_session_pk primary key (primary_id)
+                    )
+                    """,
+                    "create unique index if not exists spring_session_ix1 on spring_session (session_id)",
+                    "create index if not exists spring_session_ix2 on spring_session (expiry_time)",
+                    "create index if not exists spring_session_ix3 on spring_session (principal_name)",
+                    """
+                    create table if not exists spring_session_attributes (
+                      session_primary_id char(36) not null,
+                      attribute_name varchar(200) not null,
+                      attribute_bytes %s not null,
+                      constraint spring_session_attributes_pk primary key (session_primary_id, attribute_name),
+                      constraint spring_session_attributes_fk foreign key (session_primary_id)
+                        references spring_session (primary_id) on delete cascade
+                    )
+                    """.formatted(blob)
+            );
+            for (String sql : statements) {
+                try {
+                    jdbc.execute(sql);
+                } catch (RuntimeException e) {
+                    log.warn("Session schema statement failed [{}]: {}",
+                            sql.strip().lines().findFirst().orElse(sql), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.foodapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpEntity;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells the global {@code @ModelAttribute} advices whether the current handler renders a view.
+ * JSON handlers ({@code @ResponseBody}, {@code @RestController}, {@code ResponseEntity}) never
+ * read the model, so the advices skip them.
+ */
+final class ViewHandlers {
+
+    private static final Map<Method, Boolean> RENDERS_VIEW = new ConcurrentHashMap<>();
+
+    private ViewHandlers() { }
+
+    static boolean rendersView(HttpServletRequest req) {
+        Object handler = req.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod hm)) return true;
+        return RENDERS_VIEW.computeIfAbsent(hm.getMethod(), m -> !writesBody(hm));
+    }
+
+    private static boolean writesBody(HandlerMethod hm) {
+        return hm.hasMethodAnnotation(ResponseBody.class)
+                || AnnotatedElementUtils.hasAnnotation(hm.getBeanType(), ResponseBody.class)
+                || HttpEntity.class.isAssignableFrom(hm.getMethod().getReturnType());
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.foodapp.config;
 
-import com.example.foodapp.service.AuthSessionSyncInterceptor;
-import com.example.foodapp.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -13,11 +14,27 @@ import java.nio.file.Paths;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${app.async.timeout-ms:1800000}")
+    private long asyncTimeoutMs;
 
-    private final UserService userService;
+    @Value("${app.async.threads:4}")
+    private int asyncThreads;
 
-    public WebConfig(UserService userService) {
-        this.userService = userService;
+    /** Streaming downloads (invoice export) run here; long timeout, bounded threads. */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
     }
 
     @Override
@@ -28,12 +45,5 @@ public class WebConfig implements WebMvcConfigurer {
                 .addResourceLocations("file:" + uploadPath + "/");
     }
 
-
-
-
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new AuthSessionSyncInterceptor(userService))
-                .addPathPatterns("/**");
-    }
+    // the session USER snapshot is kept in sync by SyncSessionUserFilter (see CurrentUserService)
 }
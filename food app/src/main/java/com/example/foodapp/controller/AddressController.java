@@ -38,17 +38,9 @@ public class AddressController {
 
     // ===== Helpers ============================================================
 
-    /** Try to get the current user from UserService (preferred) then session. */
+    /** Current user as a lazy reference (see CurrentUserService), or null. */
     private User currentUser(HttpSession session) {
-        try {
-            // if your UserService has this overload, it will work;
-            // if not, the catch will fall back to session.
-            User u = userService.getCurrentUser(session);
-            if (u != null) return u;
-        } catch (Throwable ignore) { /* fall back */ }
-
-        Object s = session != null ? session.getAttribute("USER") : null;
-        return (s instanceof User) ? (User) s : null;
+        return userService.getCurrentUser(session);
     }
 
     /** Returns true if the address belongs to the given user (null-safe). */
@@ -1,5 +1,7 @@
 package com.example.foodapp.controller;
 
+import com.example.foodapp.config.L2CacheStats;
+import com.example.foodapp.config.SessionSizeStats;
 import com.example.foodapp.model.Category;
 import com.example.foodapp.model.Order;
 import com.example.foodapp.model.Payment;
@@ -12,13 +14,17 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
@@ -43,6 +49,12 @@ public class AdminController {
 
     // ✅ ADD
     private final PaymentService paymentService;
+    private final SessionSizeStats sessionSizeStats;
+    private final L2CacheStats l2CacheStats;
+    private final EmailOutbox emailOutbox;
+    private final EmailRenderer emailRenderer;
+    private final PdfRenderer pdfRenderer;
+    private final InvoiceExport invoiceExport;
 
     public AdminController(ProductService productService,
                            CategoryRepository categoryRepository,
@@ -50,7 +62,13 @@ public class AdminController {
                            CategoryService categoryService,
                            OrderService orderService,
                            EmailService emailService,
-                           PaymentService paymentService) {
+                           PaymentService paymentService,
+                           SessionSizeStats sessionSizeStats,
+                           L2CacheStats l2CacheStats,
+                           EmailOutbox emailOutbox,
+                           EmailRenderer emailRenderer,
+                           PdfRenderer pdfRenderer,
+                           InvoiceExport invoiceExport) {
         this.productService = productService;
         this.categoryRepository = categoryRepository;
         this.analyticsService = analyticsService;
@@ -58,6 +76,12 @@ public class AdminController {
         this.orderService = orderService;
         this.emailService = emailService;
         this.paymentService = paymentService;
+        this.sessionSizeStats = sessionSizeStats;
+        this.l2CacheStats = l2CacheStats;
+        this.emailOutbox = emailOutbox;
+        this.emailRenderer = emailRenderer;
+        this.pdfRenderer = pdfRenderer;
+        this.invoiceExport = invoiceExport;
     }
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -68,6 +92,41 @@ public class AdminController {
         public Integer stock;
     }
 
+    /** Bytes per session attribute (compact vs Java serialization) and per stored session. */
+    @GetMapping("/sessions/stats")
+    @ResponseBody
+    public java.util.Map<String, Object> sessionStats() {
+        return sessionSizeStats.snapshot();
+    }
+
+    /** Second-level cache hits/misses per region, plus query cache and statement counts. */
+    @GetMapping("/cache/stats")
+    @ResponseBody
+    public java.util.Map<String, Object> cacheStats() {
+        return l2CacheStats.snapshot();
+    }
+
+    /** Outbox rows per status; anything DEAD needs a look. */
+    @GetMapping("/mail/outbox")
+    @ResponseBody
+    public java.util.Map<String, Long> mailOutbox() {
+        return emailOutbox.counts();
+    }
+
+    /** Render count and latency per mail template, with the template version in use. */
+    @GetMapping("/mail/render-stats")
+    @ResponseBody
+    public java.util.Map<String, Object> mailRenderStats() {
+        return emailRenderer.stats();
+    }
+
+    /** PDF render throughput, pool load and how often resources came from memory. */
+    @GetMapping("/pdf/stats")
+    @ResponseBody
+    public java.util.Map<String, Object> pdfStats() {
+        return pdfRenderer.stats();
+    }
+
     @GetMapping({"", "/"})
     public String dashboard(Model m) {
 
@@ -75,9 +134,9 @@ public class AdminController {
         m.addAttribute("revLabels", new java.util.ArrayList<>(rev.keySet()));
         m.addAttribute("revValues", new java.util.ArrayList<>(rev.values()));
 
-        m.addAttribute("ordersCount", orderService.findAll().size());
+        m.addAttribute("ordersCount", orderService.countAll());
         m.addAttribute("recentOrders", orderService.recent(10));
-        m.addAttribute("productsCount", productService.findAll().size());
+        m.addAttribute("productsCount", productService.count());
         m.addAttribute("categoriesCount", categoryService.findAll().size());
         m.addAttribute("totalRevenue", orderService.calculateTotalRevenue());
 
@@ -328,8 +387,14 @@ public class AdminController {
                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
                          @RequestParam(required = false) String sort,
+                         @RequestParam(required = false) String status,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(defaultValue = "50") int size,
                          Model m) {
-        m.addAttribute("orders", orderService.findOrders(q, from, to, sort));
+        OrderPage page = orderService.searchOrders(q, from, to, status, sort, after, size);
+        m.addAttribute("orders", page.orders());
+        m.addAttribute("nextCursor", page.nextCursor());
+        m.addAttribute("status", status);
         m.addAttribute("q", q);
         m.addAttribute("from", from);
         m.addAttribute("to", to);
@@ -337,6 +402,22 @@ public class AdminController {
         return "admin/orders";
     }
 
+    /** All paid/refunded invoices for orders placed in [from, to], streamed as one ZIP. */
+    @GetMapping("/invoices/export.zip")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        StreamingResponseBody body = out -> invoiceExport.writeZip(from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("invoices-" + from + "-to-" + to + ".zip").build().toString())
+                .body(body);
+    }
+
     @PostMapping("/orders/{id}/send-survey")
     public String sendSurvey(@PathVariable Long id,
                              RedirectAttributes ra) {
@@ -2,6 +2,7 @@ package com.example.foodapp.controller;
 
 import com.example.foodapp.model.Coupon;
 import com.example.foodapp.repository.CouponRepository;
+import com.example.foodapp.service.HomePageCache;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,9 +17,11 @@ import java.util.stream.Collectors;
 public class AdminCouponController {
 
     private final CouponRepository repo;
+    private final HomePageCache homePage;
 
-    public AdminCouponController(CouponRepository repo) {
+    public AdminCouponController(CouponRepository repo, HomePageCache homePage) {
         this.repo = repo;
+        this.homePage = homePage;
     }
 
     // LIST + filters (code + status)
@@ -91,12 +94,14 @@ public class AdminCouponController {
         }
         coupon.setCode(coupon.getCode().trim().toUpperCase());
         repo.save(coupon);
+        homePage.couponsChanged();
         return "redirect:/admin/coupons";   // ✅ redirect to list
     }
 
     @PostMapping("/{id}/delete")
     public String delete(@PathVariable Long id) {
         repo.deleteById(id);
+        homePage.couponsChanged();
         return "redirect:/admin/coupons";   // ✅ redirect to list
     }
 }
@@ -1,6 +1,7 @@
 package com.example.foodapp.controller;
 import com.example.foodapp.model.Admin;
 import com.example.foodapp.service.AdminService;
+import com.example.foodapp.web.SessionAdmin;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -40,7 +41,7 @@ public class AdminLoginController {
         session.removeAttribute("USER");
 
         // Store admin only
-        session.setAttribute("ADMIN_USER", admin);
+        session.setAttribute("ADMIN_USER", SessionAdmin.of(admin));
 
         return "redirect:/admin/dashboard";
     }
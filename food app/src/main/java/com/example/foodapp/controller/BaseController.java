@@ -13,16 +13,11 @@ public abstract class BaseController {
     private UserService userService;
 
     /**
-     * Preferred user lookup. Tries UserService (e.g. Spring Security principal),
-     * then falls back to the legacy "USER" session attribute.
+     * The signed-in user, or null for guests. Resolved from the session snapshot or the
+     * cached principal lookup in CurrentUserService; returns a lazy JPA reference, so
+     * only pages that read profile fields load the row.
      */
     protected User currentUser(HttpSession session) {
-        try {
-            User u = userService.getCurrentUser(session); // ok if null / not implemented
-            if (u != null) return u;
-        } catch (Throwable ignored) { /* fallback */ }
-
-        Object s = (session != null) ? session.getAttribute("USER") : null;
-        return (s instanceof User) ? (User) s : null;
+        return userService.getCurrentUser(session);
     }
 }
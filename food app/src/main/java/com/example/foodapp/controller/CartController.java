@@ -3,8 +3,9 @@ package com.example.foodapp.controller;
 import com.example.foodapp.model.Product;
 import com.example.foodapp.model.ProductVariant;
 import com.example.foodapp.model.User;
-import com.example.foodapp.service.InventoryService;
+import com.example.foodapp.service.CartStore;
 import com.example.foodapp.service.ProductService;
+import com.example.foodapp.service.StockReservationService;
 import com.example.foodapp.service.UserService;
 import com.example.foodapp.util.Cart;
 import com.example.foodapp.util.CartItem;
@@ -24,24 +25,22 @@ public class CartController {
 
     private final ProductService productService;
     private final UserService userService;
-    private final InventoryService inventoryService;
+    private final StockReservationService reservationService;
+    private final CartStore cartStore;
 
     public CartController(ProductService productService,
                           UserService userService,
-                          InventoryService inventoryService) {
+                          StockReservationService reservationService,
+                          CartStore cartStore) {
         this.productService = productService;
         this.userService = userService;
-        this.inventoryService = inventoryService;
+        this.reservationService = reservationService;
+        this.cartStore = cartStore;
     }
 
-    /** Ensure we always have a Cart object in the session */
+    /** This session's cart, for reading; changes go through cartStore.update */
     private Cart getOrCreateCart(HttpSession session) {
-        Cart cart = (Cart) session.getAttribute("CART");
-        if (cart == null) {
-            cart = new Cart();
-            session.setAttribute("CART", cart);
-        }
-        return cart;
+        return cartStore.current(session);
     }
 
     /** Show cart page */
@@ -50,6 +49,7 @@ public class CartController {
         Cart cart = getOrCreateCart(session);
         m.addAttribute("cart", cart);
         m.addAttribute("cartCount", CartUtils.getCartTotalQuantity(cart));
+        m.addAttribute("stockIssues", reservationService.shortagesForCart(cart.getItems()));
         return "cart";
     }
 
@@ -70,28 +70,18 @@ public class CartController {
             return out;
         }
 
-        // Basic stock check using InventoryService
-        Map<Long, Integer> stockMap =
-                inventoryService.getStocksForProductIds(Collections.singletonList(productId));
-        Integer stock = (stockMap != null) ? stockMap.getOrDefault(productId, 0) : null;
-
-        if (stock != null) {
-            if (stock <= 0) {
-                out.put("status", "error");
-                out.put("message", "This item is currently out of stock.");
-                return out;
-            }
-            if (qty > stock) {
-                out.put("status", "error");
-                out.put("message", "Only " + stock + " left in stock.");
-                return out;
-            }
+        // Available-to-sell (stock minus other shoppers' checkout holds), served from memory
+        int stock = reservationService.availableToSell(productId, variantId);
+        if (stock <= 0) {
+            out.put("status", "error");
+            out.put("message", "This item is currently out of stock.");
+            return out;
+        }
+        if (qty > stock) {
+            out.put("status", "error");
+            out.put("message", "Only " + stock + " left in stock.");
+            return out;
         }
-
-        // Resolve image
-        String img = (p.getImageUrl() == null || p.getImageUrl().isBlank())
-                ? "/images/chilli%20powder.jpeg"
-                : p.getImageUrl();
 
         // Resolve size + unit price (+ chosen variant if provided)
         String sizeLabel;
@@ -121,34 +111,10 @@ public class CartController {
             unitPrice = p.getPrice();
         }
 
-        // display name size-aware so different weights show as separate lines
-        String displayName = p.getName() + " — " + sizeLabel;
-
-        Cart cart = getOrCreateCart(session);
-
-        // Merge rule: same product + same display name (therefore same size)
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> Objects.equals(item.getProductId(), productId)
-                        && Objects.equals(item.getName(), displayName))
-                .findFirst();
-
         int safeQty = Math.max(1, qty);
 
-        if (existingItem.isPresent()) {
-            existingItem.get().setQty(existingItem.get().getQty() + safeQty);
-        } else {
-            Integer weightForLine = (chosenVariant != null) ? chosenVariant.getWeight() : p.getWeight();
-            CartItem newItem = new CartItem(
-                    p.getId(),
-                    displayName,                           // e.g., "Turmeric — 200 g"
-                    safeQty,
-                    unitPrice,
-                    img,
-                    p.getDescription(),                     // description in cart
-                    weightForLine                           // grams in cart
-            );
-            cart.getItems().add(newItem);
-        }
+        // size-aware line ("Turmeric — 200 g"), merged with an equal line
+        Cart cart = cartStore.add(session, p, chosenVariant, safeQty);
 
         // JSON for client toast + badge
         out.put("status", "success");
@@ -205,16 +171,16 @@ public class CartController {
     public String update(@RequestParam("productId") Long productId,
                          @RequestParam("qty") int qty,
                          HttpSession session) {
-        Cart cart = getOrCreateCart(session);
-        for (Iterator<CartItem> it = cart.getItems().iterator(); it.hasNext(); ) {
-            CartItem ci = it.next();
-            if (Objects.equals(ci.getProductId(), productId)) {
-                if (qty <= 0) it.remove();
-                else ci.setQty(qty);
-                break;
+        cartStore.update(session, cart -> {
+            for (Iterator<CartItem> it = cart.getItems().iterator(); it.hasNext(); ) {
+                CartItem ci = it.next();
+                if (Objects.equals(ci.getProductId(), productId)) {
+                    if (qty <= 0) it.remove();
+                    else ci.setQty(qty);
+                    break;
+                }
             }
-        }
-        session.setAttribute("CART", cart);
+        });
         return "redirect:/cart/view";
     }
 
@@ -223,20 +189,22 @@ public class CartController {
     public String updateQtyByIndex(@RequestParam int index,
                                    @RequestParam int qty,
                                    HttpSession session) {
-        Cart cart = getOrCreateCart(session);
-        if (index >= 0 && index < cart.getItems().size()) {
-            cart.getItems().get(index).setQty(Math.max(1, qty));
-        }
+        cartStore.update(session, cart -> {
+            if (index >= 0 && index < cart.getItems().size()) {
+                cart.getItems().get(index).setQty(Math.max(1, qty));
+            }
+        });
         return "redirect:/cart/view";
     }
 
     /** Remove a line by index (matches iter.index in the view) */
     @PostMapping("/remove")
     public String removeByIndex(@RequestParam int index, HttpSession session) {
-        Cart cart = getOrCreateCart(session);
-        if (index >= 0 && index < cart.getItems().size()) {
-            cart.getItems().remove(index);
-        }
+        cartStore.update(session, cart -> {
+            if (index >= 0 && index < cart.getItems().size()) {
+                cart.getItems().remove(index);
+            }
+        });
         return "redirect:/cart/view";
     }
 
@@ -244,83 +212,74 @@ public class CartController {
     @PostMapping("/saveForLater")
     public String saveForLater(@RequestParam("productId") Long productId,
                                HttpSession session) {
-        Cart cart = getOrCreateCart(session);
+        cartStore.update(session, cart -> {
+            // Find item in active items
+            Optional<CartItem> found = cart.getItems().stream()
+                    .filter(ci -> Objects.equals(ci.getProductId(), productId))
+                    .findFirst();
 
-        // Find item in active items
-        Optional<CartItem> found = cart.getItems().stream()
-                .filter(ci -> Objects.equals(ci.getProductId(), productId))
-                .findFirst();
+            found.ifPresent(ci -> {
+                // Mark item as saved for later
+                ci.setSavedForLater(true);
 
-        found.ifPresent(ci -> {
-            // Mark item as saved for later
-            ci.setSavedForLater(true);
+                // Move between lists
+                cart.getItems().remove(ci);
 
-            // Move between lists
-            cart.getItems().remove(ci);
+                // Merge with existing saved line if present
+                Optional<CartItem> inSaved = cart.getSavedForLater().stream()
+                        .filter(s -> Objects.equals(s.getProductId(), productId)
+                                && Objects.equals(s.getName(), ci.getName()))
+                        .findFirst();
 
-            // Merge with existing saved line if present
-            Optional<CartItem> inSaved = cart.getSavedForLater().stream()
-                    .filter(s -> Objects.equals(s.getProductId(), productId)
-                            && Objects.equals(s.getName(), ci.getName()))
-                    .findFirst();
-
-            if (inSaved.isPresent()) {
-                inSaved.get().setQty(inSaved.get().getQty() + ci.getQty());
-            } else {
-                cart.getSavedForLater().add(ci);
-            }
+                if (inSaved.isPresent()) {
+                    inSaved.get().setQty(inSaved.get().getQty() + ci.getQty());
+                } else {
+                    cart.getSavedForLater().add(ci);
+                }
+            });
         });
-
-        session.setAttribute("CART", cart);
         return "redirect:/cart/view#saved-tab";
     }
 
     /** Move product from savedForLater -> items (merge by productId + display name) */
     @PostMapping("/moveToCart")
     public String moveToCart(@RequestParam Long productId, HttpSession session) {
-        Cart cart = getOrCreateCart(session);
-
-        Optional<CartItem> found = cart.getSavedForLater().stream()
-                .filter(ci -> Objects.equals(ci.getProductId(), productId))
-                .findFirst();
+        cartStore.update(session, cart -> {
+            Optional<CartItem> found = cart.getSavedForLater().stream()
+                    .filter(ci -> Objects.equals(ci.getProductId(), productId))
+                    .findFirst();
 
-        found.ifPresent(ci -> {
-            // Mark item as active again
-            ci.setSavedForLater(false);
+            found.ifPresent(ci -> {
+                // Mark item as active again
+                ci.setSavedForLater(false);
 
-            // Remove from saved list
-            cart.getSavedForLater().remove(ci);
+                // Remove from saved list
+                cart.getSavedForLater().remove(ci);
 
-            // Merge with existing active line if present
-            Optional<CartItem> existing = cart.getItems().stream()
-                    .filter(i -> Objects.equals(i.getProductId(), ci.getProductId())
-                            && Objects.equals(i.getName(), ci.getName()))
-                    .findFirst();
+                // Merge with existing active line if present
+                Optional<CartItem> existing = cart.getItems().stream()
+                        .filter(i -> Objects.equals(i.getProductId(), ci.getProductId())
+                                && Objects.equals(i.getName(), ci.getName()))
+                        .findFirst();
 
-            if (existing.isPresent()) {
-                existing.get().setQty(existing.get().getQty() + ci.getQty());
-            } else {
-                cart.getItems().add(ci);
-            }
+                if (existing.isPresent()) {
+                    existing.get().setQty(existing.get().getQty() + ci.getQty());
+                } else {
+                    cart.getItems().add(ci);
+                }
+            });
         });
-
-        session.setAttribute("CART", cart);
         return "redirect:/cart/view";
     }
 
     /** Clear entire cart */
     @PostMapping("/clear")
     public String clear(HttpSession session) {
-        session.setAttribute("CART", new Cart());
+        cartStore.clear(session);
         return "redirect:/cart/view";
     }
 
     private User currentUser(HttpSession session) {
-        try {
-            User u = userService.getCurrentUser(session);
-            if (u != null) return u;
-        } catch (Throwable ignore) { }
-        Object s = session != null ? session.getAttribute("USER") : null;
-        return (s instanceof User) ? (User) s : null;
+        return userService.getCurrentUser(session);
     }
 }
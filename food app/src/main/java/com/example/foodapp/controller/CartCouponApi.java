@@ -3,8 +3,7 @@ package com.example.foodapp.controller;
 import com.example.foodapp.model.User;
 import com.example.foodapp.service.CouponService;
 import com.example.foodapp.service.OrderService;
-import com.example.foodapp.util.CartSession;
-import com.example.foodapp.util.CouponApplyResponse;
+import com.example.foodapp.service.UserService;
 import com.example.foodapp.util.SessionCart;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.MediaType;
@@ -18,19 +17,19 @@ import java.util.Map;
 @RequestMapping("/api/cart/coupon")
 public class CartCouponApi {
 
-    private final CartSession cartSession;
     private final CouponService couponService;
     private final SessionCart sessionCart;
     private final OrderService orderService;
+    private final UserService userService;
 
-    public CartCouponApi(CartSession cartSession,
-                         CouponService couponService,
+    public CartCouponApi(CouponService couponService,
                          SessionCart sessionCart,
-                         OrderService orderService) {
-        this.cartSession = cartSession;
+                         OrderService orderService,
+                         UserService userService) {
         this.couponService = couponService;
         this.sessionCart = sessionCart;
         this.orderService = orderService;
+        this.userService = userService;
     }
 
     /** Make sure SessionCart has real lines (qty + unit price) before math. */
@@ -110,7 +109,8 @@ public class CartCouponApi {
         }
 
         // 👤 current user from session (for one-time usage)
-        User user = (User) req.getSession().getAttribute("USER");
+        // (the session only holds a SessionUser snapshot)
+        User user = userService.getCurrentUser(req.getSession());
 
         var v = couponService.validate(code.trim(), user, sessionCart.getSubtotal());
         if (v.error() != null) {
@@ -154,14 +154,4 @@ public class CartCouponApi {
         m.put("applied",    sessionCart.getAppliedCouponCode());
         return m;
     }
-
-    // (kept in case something else in your app still calls it)
-    private CouponApplyResponse toResp(String status, String msg){
-        var c = cartSession.get();
-        return new CouponApplyResponse(
-                status, msg,
-                c.getSubtotal(), c.getDiscount(), c.getTax(), c.getGrandTotal(),
-                c.countItems()
-        );
-    }
 }
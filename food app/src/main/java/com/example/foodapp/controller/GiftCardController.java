@@ -3,6 +3,7 @@ package com.example.foodapp.controller;
 
 import com.example.foodapp.model.User;
 import com.example.foodapp.service.AddressService;
+import com.example.foodapp.service.CartStore;
 import com.example.foodapp.service.GiftCardService;
 import com.example.foodapp.service.UserService;
 import com.example.foodapp.util.Cart;
@@ -26,15 +27,18 @@ public class GiftCardController {
     private final AddressService addressService;
     private final com.example.foodapp.service.CartService cartService;
     private final UserService userService;
+    private final CartStore cartStore;
 
     public GiftCardController(GiftCardService service,
                               AddressService addressService,
                               com.example.foodapp.service.CartService cartService,
-                              UserService userService) {
+                              UserService userService,
+                              CartStore cartStore) {
         this.service = service;
         this.addressService = addressService;
         this.cartService = cartService;
         this.userService = userService;
+        this.cartStore = cartStore;
     }
 
     /* ---------- helper ---------- */
@@ -45,19 +49,13 @@ public class GiftCardController {
             return null;
         }
 
-        Object u = session != null ? session.getAttribute("USER") : null;
-        return (u instanceof User) ? (User) u : null;
+        return userService.getCurrentUser(session);
     }
 
 
 
     private Cart getOrCreateCart(HttpSession session) {
-        Cart cart = (Cart) session.getAttribute("CART");
-        if (cart == null) {
-            cart = new Cart();
-            session.setAttribute("CART", cart);
-        }
-        return cart;
+        return cartStore.current(session);
     }
 
     /* ---------- pages ---------- */
@@ -86,9 +84,7 @@ public class GiftCardController {
             model.addAttribute("totalBalance", service.totalBalance(userId));
 
             // cart count
-            Cart cart = (Cart) session.getAttribute("CART");
-            int cartCount = cart == null ? 0 : cart.getTotalQuantity();
-            model.addAttribute("cartCount", cartCount);
+            model.addAttribute("cartCount", cartStore.count(session));
 
             return "gift-cards";
         }
@@ -168,9 +164,7 @@ public class GiftCardController {
         model.addAttribute("selectedAddressId", addressId);
         model.addAttribute("suggestedEmail", user.getEmail());
 
-        Cart cart = (Cart) session.getAttribute("CART");
-        int cartCount = (cart == null) ? 0 : cart.getTotalQuantity();
-        model.addAttribute("cartCount", cartCount);
+        model.addAttribute("cartCount", cartStore.count(session));
 
         return "gift-cards-buy";
     }
@@ -207,8 +201,6 @@ public class GiftCardController {
             return "redirect:/gift-cards/buy";
         }
 
-        Cart cart = getOrCreateCart(session);
-
         CartItem item = new CartItem();
         item.setType(CartItem.Type.GIFT_CARD);
         item.setProductId(-System.nanoTime());
@@ -227,8 +219,7 @@ public class GiftCardController {
                         ? recipientName
                         : "your recipient"));
 
-        cart.getItems().add(item);
-        session.setAttribute("CART", cart);
+        cartStore.update(session, cart -> cart.getItems().add(item));
 
         ra.addFlashAttribute("flashOk", true);
         ra.addFlashAttribute("flashMsg", "Gift card added to your cart.");
@@ -4,7 +4,6 @@ import com.example.foodapp.model.*;
 import com.example.foodapp.repository.CouponRedemptionRepository;
 import com.example.foodapp.repository.CouponRepository;
 import com.example.foodapp.service.*;
-import com.example.foodapp.util.Cart;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -39,11 +38,15 @@ private final UserService userService;
     private final CouponRepository couponRepository;
 
     private final AnalyticsService analyticsService;
-    private final InventoryService inventoryService;
+    private final StockReservationService reservationService;
+    private final CartStore cartStore;
+    private final HomePageCache homePage;
+    private final CurrentUserService currentUsers;
+    private final ProductSearchService productSearch;
 
 
 
-    public HomeController(ProductService productService, ReviewService reviewService, CategoryService categoryService, CouponRedemptionRepository couponRedemptionRepository, UserService userService, CouponRepository couponRepository, AnalyticsService analyticsService, InventoryService inventoryService) {
+    public HomeController(ProductService productService, ReviewService reviewService, CategoryService categoryService, CouponRedemptionRepository couponRedemptionRepository, UserService userService, CouponRepository couponRepository, AnalyticsService analyticsService, StockReservationService reservationService, CartStore cartStore, HomePageCache homePage, CurrentUserService currentUsers, ProductSearchService productSearch) {
         this.productService = productService;
         this.reviewService = reviewService;
         this.categoryService = categoryService;
@@ -51,7 +54,11 @@ private final UserService userService;
         this.userService = userService;
         this.couponRepository = couponRepository;
         this.analyticsService = analyticsService;
-        this.inventoryService = inventoryService;
+        this.reservationService = reservationService;
+        this.cartStore = cartStore;
+        this.homePage = homePage;
+        this.currentUsers = currentUsers;
+        this.productSearch = productSearch;
     }
 
 
@@ -65,64 +72,19 @@ private final UserService userService;
     @GetMapping("/")
     public String index(Model m, HttpSession session) {
 
-        var today = java.time.LocalDate.now();
-        User user = currentUser(session);   // from BaseController
+        // everything below is served from memory (see HomePageCache); guests run no queries
+        Long userId = currentUsers.currentUserId(session);
+        List<Coupon> coupons = homePage.availableCoupons(userId);
+        List<Product> bestSellers = homePage.bestSellers(); // 4 items, last 90 days
 
-        // 1) Base set: active + date-valid coupons
-        java.util.List<com.example.foodapp.model.Coupon> base;
-        try {
-            // if you have this query, use it (already in CouponRepository)
-            base = couponRepository.findActiveCurrentlyValid(today);
-        } catch (Exception e) {
-            // fallback: manual filtering from findAll()
-            base = couponRepository.findAll().stream()
-                    .filter(c -> java.lang.Boolean.TRUE.equals(c.getActive()))
-                    .filter(c -> c.getStartsOn() == null || !today.isBefore(c.getStartsOn()))
-                    .filter(c -> c.getExpiresOn() == null || !today.isAfter(c.getExpiresOn()))
-                    .sorted(java.util.Comparator
-                            .comparing((com.example.foodapp.model.Coupon c) ->
-                                    c.getStartsOn() == null
-                                            ? java.time.LocalDate.MIN
-                                            : c.getStartsOn())
-                            .thenComparing(com.example.foodapp.model.Coupon::getCode,
-                                    String.CASE_INSENSITIVE_ORDER))
-                    .toList();
-        }
-
-        // 2) Filter by user: remove coupons already redeemed by this user
-        java.util.List<com.example.foodapp.model.Coupon> coupons;
-
-        if (user != null) {
-            java.util.Set<Long> redeemedIds = couponRedemptionRepository.findByUser(user)
-                    .stream()
-                    .map(cr -> cr.getCoupon() != null ? cr.getCoupon().getId() : null)
-                    .filter(java.util.Objects::nonNull)
-                    .collect(java.util.stream.Collectors.toSet());
-
-            coupons = base.stream()
-                    .filter(c -> c.getId() != null && !redeemedIds.contains(c.getId()))
-                    .toList();
-        } else {
-            // guest: show all active/date-valid coupons
-            coupons = base;
-        }
-
-        System.out.println(">>> availableCoupons size = " + coupons.size()); // DEBUG
-
-        // 3) Best sellers (variants are handled in your index.html)
-        var bestSellers = analyticsService.topSellers(4, 90); // 4 items, last 90 days
-
-        // 4) Model attributes
         m.addAttribute("availableCoupons", coupons);
         m.addAttribute("couponCount", coupons.size());
         m.addAttribute("bestSellers", bestSellers);
-        m.addAttribute("latestReviews", reviewService.latestApproved(3));
+        m.addAttribute("avgMap", reviewService.avgMap(bestSellers));
+        m.addAttribute("cntMap", reviewService.countMap(bestSellers));
+        m.addAttribute("latestReviews", homePage.latestReviews());
 
-        // Your existing cartCount logic (still fine)
-        var cart = session.getAttribute("CART");
-        m.addAttribute("cartCount", cart != null
-                ? com.example.foodapp.util.CartUtils.getCartTotalQuantity((Cart) cart)
-                : 0);
+        m.addAttribute("cartCount", cartStore.count(session));
 
         return "index";
     }
@@ -194,19 +156,11 @@ private final UserService userService;
 //        return out;
 //    }
 
+    // name and category matches both come from the ranked (indexed) product search
     private List<ChatProductDTO> tryFindProducts(String q) {
         String s = q.trim();
         if (s.isEmpty()) return List.of();
-
-        List<Product> byName = productService.searchByName(s);
-        if (!byName.isEmpty()) return mapProducts(byName);
-
-        for (String token : s.split("\\s+")) {
-            if (token.length() < 3) continue;
-            List<Product> byCat = productService.searchByCategoryName(token);
-            if (!byCat.isEmpty()) return mapProducts(byCat);
-        }
-        return List.of();
+        return mapProducts(productSearch.search(s, 5));
     }
 
     private List<ChatProductDTO> mapProducts(List<Product> products) {
@@ -244,8 +198,7 @@ private final UserService userService;
             @RequestParam(required = false, defaultValue = "nameAsc") String sort,
             Model m, HttpSession session
     ) {
-        Cart cart = (Cart) session.getAttribute("CART");
-        int cartCount = (cart != null) ? cart.getTotalQuantity() : 0;
+        int cartCount = cartStore.count(session);
 
         // 1) get the products ONCE
         List<Product> products = productService.filter(q, min, max, categoryId, sort);
@@ -253,15 +206,9 @@ private final UserService userService;
 
 
 
-        // 2) compute maps using the SAME list
-        Map<Long, Double> avgMap = products.stream()
-                .collect(Collectors.toMap(Product::getId, p -> reviewService.avg(p)));
-        Map<Long, Long> cntMap = products.stream()
-                .collect(Collectors.toMap(Product::getId, p -> reviewService.count(p)));
-
-        // 3) add maps
-        m.addAttribute("avgMap", avgMap);
-        m.addAttribute("cntMap", cntMap);
+        // 2) rating maps for the SAME list (served from the in-memory rating aggregate)
+        m.addAttribute("avgMap", reviewService.avgMap(products));
+        m.addAttribute("cntMap", reviewService.countMap(products));
 
         // other model data
         m.addAttribute("categories", categoryService.findAll());
@@ -271,7 +218,7 @@ private final UserService userService;
         m.addAttribute("categoryId", categoryId);
         m.addAttribute("sort", sort);
         m.addAttribute("cartCount", cartCount);
-        Map<Long,Integer> stockByProduct = inventoryService.getStocksForProductIds(
+        Map<Long,Integer> stockByProduct = reservationService.availableForProducts(
                 products.stream().map(Product::getId).toList());
         m.addAttribute("stockByProduct", stockByProduct);
 
@@ -329,14 +276,9 @@ private final UserService userService;
     }
 
 
+    // cached principal lookup, see CurrentUserService
     protected User currentUser(HttpSession session) {
-        try {
-            User u = userService.getCurrentUser(session); // ok if null / not implemented
-            if (u != null) return u;
-        } catch (Throwable ignored) { /* fallback */ }
-
-        Object s = (session != null) ? session.getAttribute("USER") : null;
-        return (s instanceof User) ? (User) s : null;
+        return userService.getCurrentUser(session);
     }
 
 
@@ -2,31 +2,33 @@
 package com.example.foodapp.controller;
 
 import com.example.foodapp.model.Order;
+import com.example.foodapp.service.InvoiceRenderer;
+import com.example.foodapp.service.InvoiceStore;
 import com.example.foodapp.service.OrderService;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-
-import java.io.ByteArrayOutputStream;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 public class InvoiceController {
 
     private final OrderService orderService;
-    private final TemplateEngine templateEngine;
+    private final InvoiceRenderer invoiceRenderer;
+    private final InvoiceStore invoiceStore;
 
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
-    public InvoiceController(OrderService orderService, TemplateEngine templateEngine) {
+    public InvoiceController(OrderService orderService, InvoiceRenderer invoiceRenderer, InvoiceStore invoiceStore) {
         this.orderService = orderService;
-        this.templateEngine = templateEngine;
+        this.invoiceRenderer = invoiceRenderer;
+        this.invoiceStore = invoiceStore;
     }
 
     /**
@@ -46,48 +48,41 @@ public class InvoiceController {
 
 
     @GetMapping(value = "/orders/{id}/invoice.pdf", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> invoicePdf(@PathVariable Long id) {
+    public ResponseEntity<Resource> invoicePdf(@PathVariable Long id, WebRequest request) {
         Order order = orderService.getOrderById(id);
-
-        // Render Thymeleaf HTML to string
-        Context ctx = new Context();
-        ctx.setVariable("order", order);
-        ctx.setVariable("baseUrl", baseUrl); // if you use it in HTML for absolute urls
-
-        String html = templateEngine.process("invoice", ctx);
-
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.useFastMode();
-
-            // ✅ IMPORTANT: give baseUri so relative resources can be resolved
-            // Example: http://localhost:8080  (or your deployed domain)
-            builder.withHtmlContent(html, baseUrl);
-
-            builder.toStream(baos);
-            builder.run();
-
+        ContentDisposition attachment = ContentDisposition.attachment()
+                .filename("invoice-" + order.getConfirmationNumber() + ".pdf")
+                .build();
+
+        try {
+            if (InvoiceStore.isFinal(order)) {
+                // paid: stream the stored file, or 304 if the client already has it
+                InvoiceStore.StoredInvoice stored = invoiceStore.get(id);
+                if (request.checkNotModified(stored.etag(), stored.lastModified())) return null;
+
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .contentLength(stored.size())
+                        .eTag(stored.etag())
+                        .lastModified(stored.lastModified())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+                        .body(new FileSystemResource(stored.file()));
+            }
+
+            // not paid yet: the order can still change, so render fresh and don't keep it
+            byte[] pdf = invoiceRenderer.pdf(invoiceRenderer.html(order));
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
-
-            // ✅ Download as file
-            headers.setContentDisposition(
-                    ContentDisposition.attachment()
-                            .filename("invoice-" + order.getConfirmationNumber() + ".pdf")
-                            .build()
-            );
-
-            // Optional but nice
+            headers.setContentDisposition(attachment);
             headers.setCacheControl(CacheControl.noStore());
-
-            return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
+            return new ResponseEntity<>(new ByteArrayResource(pdf), headers, HttpStatus.OK);
 
         } catch (Exception e) {
             // ✅ Don’t redirect for PDF downloads; return a real error
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .contentType(MediaType.TEXT_PLAIN)
-                    .body(("PDF generation failed: " + e.getMessage()).getBytes());
+                    .body(new ByteArrayResource(("PDF generation failed: " + e.getMessage()).getBytes()));
         }
     }
 
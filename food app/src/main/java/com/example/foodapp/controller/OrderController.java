@@ -38,6 +38,9 @@ public class OrderController extends BaseController {
     private final PaypalService paypalService;
     private final StripeService stripeService;
     private final LoyaltyService loyaltyService;
+    private final StockReservationService reservationService;
+    private final CartStore cartStore;
+    private final HomePageCache homePage;
 
 
     public OrderController(OrderService orderService,
@@ -47,7 +50,10 @@ public class OrderController extends BaseController {
                            SessionCart sessionCart,
                            CouponRepository couponRepository,
                            GiftCardService giftCardService,
-                           CouponRedemptionRepository couponRedemptionRepository, PaymentService paymentService, PaypalService paypalService, StripeService stripeService, LoyaltyService loyaltyService) {
+                           CouponRedemptionRepository couponRedemptionRepository, PaymentService paymentService, PaypalService paypalService, StripeService stripeService, LoyaltyService loyaltyService,
+                           StockReservationService reservationService,
+                           CartStore cartStore,
+                           HomePageCache homePage) {
         this.orderService = orderService;
         this.addressService = addressService;
         this.inventoryService = inventoryService;
@@ -60,6 +66,9 @@ public class OrderController extends BaseController {
         this.paypalService = paypalService;
         this.stripeService = stripeService;
         this.loyaltyService = loyaltyService;
+        this.reservationService = reservationService;
+        this.cartStore = cartStore;
+        this.homePage = homePage;
     }
 
     @GetMapping("/checkout")
@@ -82,8 +91,8 @@ public class OrderController extends BaseController {
             sessionCart.syncFromOrderItems(order.getItems());
             hydrated = true;
         } else {
-            Object obj = session.getAttribute("CART");
-            if (obj instanceof Cart sc && sc.getItems() != null && !sc.getItems().isEmpty()) {
+            Cart sc = cartStore.current(session);
+            if (!sc.getItems().isEmpty()) {
                 sessionCart.syncFromCartItems(sc.getItems());
                 hydrated = true;
             } else if (com.example.foodapp.util.GlobalData.cart != null
@@ -99,6 +108,10 @@ public class OrderController extends BaseController {
 
         sessionCart.recalc();
 
+        // every line checked against available-to-sell in one in-memory pass
+        Map<StockKey, String> skuNames = new HashMap<>();
+        List<StockShortage> stockIssues = reservationService.shortages(sessionCart.quantitiesBySku(skuNames), skuNames);
+
         boolean cartHasGiftCard = sessionCart.containsGiftCard();
 
         List<Coupon> availableCoupons = Collections.emptyList();
@@ -131,6 +144,7 @@ public class OrderController extends BaseController {
         m.addAttribute("cartCount", sessionCart.getCount());
         m.addAttribute("availableCoupons", availableCoupons);
         m.addAttribute("cartHasGiftCard", cartHasGiftCard);
+        m.addAttribute("stockIssues", stockIssues);
         m.addAttribute("walletPoints", loyaltyService.getBalance(user.getId()));
 
 
@@ -149,13 +163,14 @@ public class OrderController extends BaseController {
                         @RequestParam String country,
                         @RequestParam(required = false, defaultValue = "0") Integer pointsUsed,
                         HttpSession session,
-                        Model m) {
+                        Model m,
+                        RedirectAttributes ra) {
 
         User user = currentUser(session);
         if (user == null) return "redirect:/login";
 
-        Cart cart = (Cart) session.getAttribute("CART");
-        if (cart == null || cart.isEmpty()) return "redirect:/cart/view";
+        Cart cart = cartStore.current(session);
+        if (cart.isEmpty()) return "redirect:/cart/view";
 
         // ensure SessionCart matches the latest cart items (for discount)
         if (sessionCart.getCount() <= 0
@@ -210,6 +225,7 @@ public class OrderController extends BaseController {
         o.setItems(cart.getItems().stream().map(ci -> {
             OrderItem it = new OrderItem();
             it.setProductId(ci.getProductId());
+            it.setVariantId(ci.getVariantId());
             it.setProductName(ci.getName());
             it.setQuantity(ci.getQty());
             it.setPrice(ci.getPrice());
@@ -229,6 +245,16 @@ public class OrderController extends BaseController {
         // save order
         Order saved = orderService.save(o);
 
+        // hold stock before any points/coupons/gift cards are applied; a short line rejects the order.
+        // The holds turn into a stock decrement when the order is paid (OrderService.markPaid).
+        try {
+            reservationService.reserve(saved);
+        } catch (InsufficientStockException e) {
+            orderService.markCancelled(saved.getId());
+            ra.addFlashAttribute("stockError", e.getMessage());
+            return "redirect:/cart/view";
+        }
+
         // ✅ Loyalty redeem (wallet points) - add-on logic
         if (pointsUsed != null && pointsUsed > 0) {
 
@@ -265,6 +291,7 @@ public class OrderController extends BaseController {
             redemption.setOrder(saved);
             redemption.setRedeemedAt(LocalDateTime.now()); // if field exists
             couponRedemptionRepository.save(redemption);
+            homePage.couponRedeemed(user.getId(), sessionCart.getAppliedCoupon().getId());
 
             // clear coupon from cart for next orders
             sessionCart.setAppliedCoupon(null);
@@ -283,9 +310,8 @@ public class OrderController extends BaseController {
             }
         }
 
-        cart.clear();
+        cartStore.clear(session);
        // emailService.sendOrderConfirmation(saved.getId());
-        inventoryService.applyOrder(saved);
        // emailService.sendOrderSurveyEmail(saved);
         m.addAttribute("cart", sessionCart);
 
@@ -374,7 +400,7 @@ public class OrderController extends BaseController {
             }
 
             if (refundId != null) {
-                paymentService.markRefundCompleted(refundRecord, refundId, order);
+                paymentService.markRefundCompleted(refundRecord, refundId, order, List.of(item));
                 ra.addFlashAttribute("msg", "Refund processed successfully. Confirmation email sent.");
             } else {
                 ra.addFlashAttribute("msg", "Return requested. Refund pending (no gateway refund id).");
@@ -412,9 +438,11 @@ public class OrderController extends BaseController {
             }
 
             BigDecimal refundAmount = BigDecimal.ZERO;
+            List<OrderItem> refundedLines = new ArrayList<>();
             for (OrderItem it : order.getItems()) {
-                if (!Boolean.TRUE.equals(it.getReturned())) {
+                if (!Boolean.TRUE.equals(it.getReturned()) && !it.isRefunded()) {
                     it.setReturnRequested(true);
+                    refundedLines.add(it);
                     if (it.getLineTotal() != null) refundAmount = refundAmount.add(it.getLineTotal());
                 }
             }
@@ -455,7 +483,7 @@ public class OrderController extends BaseController {
             }
 
             if (refundId != null) {
-                paymentService.markRefundCompleted(refundRecord, refundId, order);
+                paymentService.markRefundCompleted(refundRecord, refundId, order, refundedLines);
                 ra.addFlashAttribute("msg", "Return requested and refund started. You'll receive a confirmation email.");
             } else {
                 ra.addFlashAttribute("msg", "Return requested. Refund could not be started (check logs).");
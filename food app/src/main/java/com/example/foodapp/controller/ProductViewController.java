@@ -4,7 +4,7 @@ package com.example.foodapp.controller;
 import com.example.foodapp.model.Product;
 import com.example.foodapp.model.Review;
 import com.example.foodapp.model.User;
-import com.example.foodapp.util.Cart;
+import com.example.foodapp.service.CartStore;
 import com.example.foodapp.service.ProductService;
 import com.example.foodapp.service.ReviewService;
 import jakarta.servlet.http.HttpSession;
@@ -22,11 +22,14 @@ public class ProductViewController extends BaseController {
 
     private final ProductService productService;
     private final ReviewService reviewService;
+    private final CartStore cartStore;
 
     public ProductViewController(ProductService productService,
-                                 ReviewService reviewService) {
+                                 ReviewService reviewService,
+                                 CartStore cartStore) {
         this.productService = productService;
         this.reviewService = reviewService;
+        this.cartStore = cartStore;
     }
 
     // GET /product/{id} – show product details + reviews
@@ -35,8 +38,7 @@ public class ProductViewController extends BaseController {
         Product p = productService.findById(id);
         if (p == null) return "redirect:/menu";
 
-        Cart cart = (Cart) session.getAttribute("CART");
-        int cartCount = (cart != null) ? cart.getTotalQuantity() : 0;
+        int cartCount = cartStore.count(session);
 
         double avg = reviewService.avg(p);
         long count = reviewService.count(p);
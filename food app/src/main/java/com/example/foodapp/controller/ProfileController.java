@@ -129,7 +129,7 @@ public class ProfileController extends BaseController {
         u.setCountry(form.getCountry());
         userService.save(u);
 
-        session.setAttribute("USER", u);
+        session.setAttribute("USER", SessionUser.of(u));
         return "redirect:/profile/view?msg=Profile+updated";
     }
 
@@ -165,7 +165,7 @@ public class ProfileController extends BaseController {
             // Update user
             u.setAvatarUrl(publicUrl);
             userService.save(u);
-            session.setAttribute("USER", u);
+            session.setAttribute("USER", SessionUser.of(u));
             return "redirect:/profile?msg=Photo+updated";
         } catch (IOException e) {
             e.printStackTrace();
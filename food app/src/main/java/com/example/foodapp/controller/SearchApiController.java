@@ -0,0 +1,64 @@
+package com.example.foodapp.controller;
+
+import com.example.foodapp.model.ChatProductDTO;
+import com.example.foodapp.model.Product;
+import com.example.foodapp.service.CatalogCache;
+import com.example.foodapp.service.CatalogSnapshot;
+import com.example.foodapp.service.ProductSearchService;
+import com.example.foodapp.service.SuggestIndex;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchApiController {
+
+    private final ProductSearchService searchService;
+    private final SuggestIndex suggestIndex;
+    private final CatalogCache catalog;
+
+    public SearchApiController(ProductSearchService searchService, SuggestIndex suggestIndex, CatalogCache catalog) {
+        this.searchService = searchService;
+        this.suggestIndex = suggestIndex;
+        this.catalog = catalog;
+    }
+
+    /** Ranked product search: GET /api/search?q=garam masala */
+    @GetMapping
+    public List<ChatProductDTO> search(@RequestParam(defaultValue = "") String q,
+                                       @RequestParam(defaultValue = "12") int limit) {
+        return toDtos(searchService.search(q, Math.max(1, Math.min(limit, 50))));
+    }
+
+    /** Prefix autocomplete for the search box: GET /api/search/autocomplete?q=gar */
+    @GetMapping("/autocomplete")
+    public List<ChatProductDTO> autocomplete(@RequestParam(defaultValue = "") String q,
+                                             @RequestParam(defaultValue = "8") int limit) {
+        return toDtos(searchService.autocomplete(q, Math.max(1, Math.min(limit, 20))));
+    }
+
+    /** Typo/synonym tolerant suggestions from the in-memory index (no DB): GET /api/search/suggest?q=haldi */
+    @GetMapping("/suggest")
+    public List<ChatProductDTO> suggest(@RequestParam(defaultValue = "") String q,
+                                        @RequestParam(defaultValue = "8") int limit) {
+        CatalogSnapshot snap = catalog.current();
+        List<Product> products = suggestIndex.suggest(q, Math.max(1, Math.min(limit, 20))).stream()
+                .map(snap::product)
+                .filter(Objects::nonNull)
+                .toList();
+        return toDtos(products);
+    }
+
+    private static List<ChatProductDTO> toDtos(List<Product> products) {
+        return products.stream().map(p -> {
+            String price = (p.getPrice() == null) ? "0.00" : p.getPrice().setScale(2, RoundingMode.HALF_UP).toPlainString();
+            return new ChatProductDTO(p.getId(), p.getName(), price, p.getImageUrl());
+        }).toList();
+    }
+}
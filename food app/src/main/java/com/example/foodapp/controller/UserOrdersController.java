@@ -3,6 +3,7 @@ package com.example.foodapp.controller;
 import com.example.foodapp.model.Order;
 import com.example.foodapp.model.Payment;
 import com.example.foodapp.model.User;
+import com.example.foodapp.service.OrderPage;
 import com.example.foodapp.service.OrderService;
 import com.example.foodapp.service.PaymentService;
 import com.example.foodapp.service.UserOrderService;
@@ -41,6 +42,8 @@ public class UserOrdersController extends BaseController {
                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
                            @RequestParam(required = false)
                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                           @RequestParam(required = false) String after,
+                           @RequestParam(defaultValue = "20") int size,
                            HttpSession session,
                            Model m) {
 
@@ -50,11 +53,14 @@ public class UserOrdersController extends BaseController {
         Long userId = user.getId();
         if (userId == null) return "redirect:/login";
 
-        // Load + filter user orders
-        List<Order> all = userOrderService.findByUser(userId);
-        List<Order> filtered = userOrderService.filterUserOrders(all, q, from, to);
+        // One keyset page, filtered in the DB, items batch-loaded
+        OrderPage page = userOrderService.findPage(userId, q, from, to, after, size);
 
-        m.addAttribute("orders", filtered);
+        m.addAttribute("orders", page.orders());
+        m.addAttribute("nextCursor", page.nextCursor());
+        m.addAttribute("q", q);
+        m.addAttribute("from", from);
+        m.addAttribute("to", to);
         return "order";   // <- your list page (order.html)
     }
 
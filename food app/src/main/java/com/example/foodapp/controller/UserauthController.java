@@ -4,6 +4,7 @@ import com.example.foodapp.model.User;
 import com.example.foodapp.service.EmailService;
 import com.example.foodapp.service.EmailServiceWelcome;
 import com.example.foodapp.service.UserService;
+import com.example.foodapp.web.SessionUser;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
@@ -76,7 +77,7 @@ public class UserauthController {
         // Clear admin session to avoid conflicts
         session.removeAttribute("ADMIN_USER");
 
-        session.setAttribute("USER", user);
+        session.setAttribute("USER", SessionUser.of(user));
 
 
         return "redirect:/";
@@ -103,7 +104,7 @@ public class UserauthController {
             return "register";
         }
         User u = userService.register(firstName, lastName, address, email, phone, username, password);
-        session.setAttribute("USER", u);
+        session.setAttribute("USER", SessionUser.of(u));
         emailService.sendWelcomeEmail(u,baseUrl);
 
         return "login";
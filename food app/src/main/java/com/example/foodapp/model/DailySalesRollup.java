@@ -0,0 +1,55 @@
+package com.example.foodapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row per (day, status bucket), maintained by SalesRollupService.
+ * Dashboards read these rows with a range scan instead of aggregating orders.
+ */
+@Entity
+@Table(name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_day_bucket",
+                columnNames = {"sales_day", "status_bucket"}))
+@Getter
+@Setter
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_bucket", nullable = false, length = 16)
+    private SalesBucket statusBucket;
+
+    private long orderCount;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    private long distinctCustomers;
+
+    private long itemsSold;
+
+    public DailySalesRollup() {
+    }
+
+    public DailySalesRollup(LocalDate day, SalesBucket statusBucket) {
+        this.day = day;
+        this.statusBucket = statusBucket;
+    }
+
+    public void add(long orders, BigDecimal amount, long items) {
+        this.orderCount += orders;
+        this.revenue = (revenue == null ? BigDecimal.ZERO : revenue).add(amount == null ? BigDecimal.ZERO : amount);
+        this.itemsSold += items;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.foodapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One newsletter send. The body is rendered once with a placeholder for each
+ * per-recipient token; {@code lastSubscriberId} is the keyset cursor, advanced in the
+ * same transaction that queues a page, so a restart picks up after the last queued page.
+ */
+@Entity
+@Table(name = "newsletter_campaigns", indexes = {
+        @Index(name = "ix_campaigns_key", columnList = "campaignKey", unique = true)
+})
+@Getter
+@Setter
+public class NewsletterCampaign {
+
+    public enum Status { RUNNING, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** e.g. {@code weekly-2026-W42}; a second start with the same key resumes or no-ops. */
+    @Column(nullable = false, unique = true, length = 80)
+    private String campaignKey;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.RUNNING;
+
+    private long lastSubscriberId;
+
+    private int queuedCount;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime finishedAt;
+}
@@ -13,7 +13,10 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_orders_user_created_id", columnList = "user_id, createdAt, id")
+})
 public class Order {
 
     @Id
@@ -41,6 +44,11 @@ public class Order {
 
     private String status;
 
+    /** Status as last loaded or saved; lets OrderService detect status transitions. */
+    @Transient
+    @JsonIgnore
+    private String persistedStatus;
+
     // Contact + address
     private String email;
     private String phone;
@@ -79,6 +87,11 @@ public class Order {
     public Order() {
     }
 
+    @PostLoad
+    void rememberStatus() {
+        this.persistedStatus = status;
+    }
+
     // ---------- Safe helpers ----------
 
     public BigDecimal getGiftAppliedSafe() {
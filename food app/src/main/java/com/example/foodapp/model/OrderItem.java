@@ -69,10 +69,17 @@ public class OrderItem {
     // item was successfully returned
     private Boolean returnRequested = false;   // user requested return
 
+    public static final String RETURN_REFUNDED = "REFUNDED";
+
     // Optional: status string
     @Getter
     @Setter
     private String returnStatus; // REQUESTED, APPROVED, REJECTED, REFUNDED
+
+    /** The money for this line has gone back to the customer; it no longer counts as sold. */
+    public boolean isRefunded() {
+        return RETURN_REFUNDED.equals(returnStatus);
+    }
     public Boolean isReturned() {
         return returned != null && returned;
     }
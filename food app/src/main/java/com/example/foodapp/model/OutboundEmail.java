@@ -0,0 +1,76 @@
+package com.example.foodapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One rendered e-mail waiting in the outbox. PENDING rows are claimed (SENDING) by the
+ * dispatcher and end up SENT, or back in PENDING with a later {@code nextAttemptAt};
+ * after the last attempt they are parked as DEAD for someone to look at.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_outbox_status_next", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_campaign_status_next", columnList = "campaignId, status, nextAttemptAt")
+})
+@Getter
+@Setter
+public class OutboundEmail {
+
+    public enum Status { PENDING, SENDING, SENT, DEAD }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 320)
+    private String toAddress;
+
+    @Column(length = 320)
+    private String fromAddress;
+
+    @Column(length = 120)
+    private String fromName;
+
+    @Column(length = 320)
+    private String replyTo;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    private LocalDateTime claimedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime sentAt;
+
+    /** Set for newsletter mail, which the outbox sends at the campaign rate; null for everything else. */
+    private Long campaignId;
+
+    public OutboundEmail() {
+    }
+
+    public OutboundEmail(String toAddress, String subject, String html) {
+        this.toAddress = toAddress;
+        this.subject = subject;
+        this.html = html;
+    }
+}
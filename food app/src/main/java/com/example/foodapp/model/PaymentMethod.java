@@ -2,6 +2,8 @@
 package com.example.foodapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,6 +11,8 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "payment_methods")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "paymentMethod")
 @Getter
 @Setter
 public class PaymentMethod {
@@ -1,6 +1,8 @@
 package com.example.foodapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,6 +11,8 @@ import java.math.BigDecimal;
 @Getter
 @Entity
 @Table(name = "product_variants")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "productVariant")
 public class ProductVariant {
 
     @Id
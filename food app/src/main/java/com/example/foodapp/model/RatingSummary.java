@@ -0,0 +1,20 @@
+package com.example.foodapp.model;
+
+/**
+ * Approved-review aggregate for one product.
+ * Keeps the raw sum so it can be updated incrementally without re-reading reviews.
+ */
+public record RatingSummary(
+        long count,
+        long ratingSum
+) {
+    public static final RatingSummary EMPTY = new RatingSummary(0, 0);
+
+    public double average() {
+        return count == 0 ? 0d : (double) ratingSum / count;
+    }
+
+    public RatingSummary plus(RatingSummary other) {
+        return new RatingSummary(count + other.count, ratingSum + other.ratingSum);
+    }
+}
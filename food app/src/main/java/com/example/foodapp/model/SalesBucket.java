@@ -0,0 +1,35 @@
+package com.example.foodapp.model;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Coarse status groups used by the daily sales rollup.
+ * Every order lands in exactly one bucket; unknown statuses are treated as OPEN.
+ * A return request is still a sale until the goods come back or the money does.
+ */
+public enum SalesBucket {
+    OPEN(Set.of("PENDING_PAYMENT", "PENDING_COD")),
+    PAID(Set.of("PAID", "SHIPPED", "DELIVERED", "FULFILLED", "COMPLETED", "RETURN_REQUESTED")),
+    REFUNDED(Set.of("RETURNED", "REFUNDED")),
+    CANCELLED(Set.of("CANCELLED"));
+
+    private final Set<String> statuses;
+
+    SalesBucket(Set<String> statuses) {
+        this.statuses = statuses;
+    }
+
+    public Set<String> statuses() {
+        return statuses;
+    }
+
+    public static SalesBucket of(String status) {
+        if (status == null) return OPEN;
+        String s = status.trim().toUpperCase(Locale.ROOT);
+        for (SalesBucket b : values()) {
+            if (b.statuses.contains(s)) return b;
+        }
+        return OPEN;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.foodapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A checkout hold on one SKU for one order. HELD rows count against available-to-sell until
+ * they are COMMITTED (payment taken, stock decremented) or RELEASED (cancelled / expired).
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_reservation_status_expires", columnList = "status, expiresAt"),
+        @Index(name = "idx_reservation_order", columnList = "orderId")
+})
+@Getter
+@Setter
+public class StockReservation {
+
+    public enum Status { HELD, COMMITTED, RELEASED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    private Long variantId;
+
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.HELD;
+
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public StockReservation() {
+    }
+
+    public StockReservation(Long orderId, Long productId, Long variantId, int quantity,
+                            Status status, LocalDateTime expiresAt) {
+        this.orderId = orderId;
+        this.productId = productId;
+        this.variantId = variantId;
+        this.quantity = quantity;
+        this.status = status;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "subscribers", indexes = {
         @Index(name="ix_subscribers_email", columnList = "email", unique = true),
-        @Index(name="ix_subscribers_status", columnList = "status")
+        @Index(name="ix_subscribers_status", columnList = "status, id")
 })
 @Getter
 @Setter
@@ -1,6 +1,7 @@
 // src/main/java/com/example/foodapp/repository/AnalyticsRepository.java
 package com.example.foodapp.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,9 @@ import com.example.foodapp.model.Order;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface AnalyticsRepository extends JpaRepository<Order, Long> {
 
@@ -58,4 +62,66 @@ public interface AnalyticsRepository extends JpaRepository<Order, Long> {
              and o.status in ('PAID','SHIPPED','DELIVERED','REFUNDED')
            """)
     Long totalOrdersSince(@Param("since") java.time.LocalDateTime since);
+
+    // ---- Sources for the daily sales rollup (one day at a time, range on created_at) ----
+
+    @Query("""
+           select o.status, o.email, count(o), coalesce(sum(o.total), 0)
+           from Order o
+           where o.createdAt >= :from and o.createdAt < :to
+           group by o.status, o.email
+           """)
+    List<Object[]> orderTotalsByStatusAndEmail(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("""
+           select o.status, coalesce(sum(oi.quantity), 0)
+           from Order o join o.items oi
+           where o.createdAt >= :from and o.createdAt < :to
+           group by o.status
+           """)
+    List<Object[]> itemsSoldByStatus(@Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    @Query("""
+           select count(distinct o.email)
+           from Order o
+           where o.createdAt >= :from and o.createdAt < :to
+             and o.status in :statuses
+           """)
+    long distinctCustomersBetween(@Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("statuses") Collection<String> statuses);
+
+    // ---- Top sellers: units sold per product id (gift cards have negative ids and no Product row) ----
+
+    @Query("""
+           select oi.productId, sum(oi.quantity)
+           from Order o join o.items oi, Product p
+           where p.id = oi.productId
+             and o.status in :statuses
+             and o.createdAt >= :since
+             and (oi.returnStatus is null or oi.returnStatus <> 'REFUNDED')
+             and (:categoryId is null or p.category.id = :categoryId)
+           group by oi.productId
+           order by sum(oi.quantity) desc, oi.productId
+           """)
+    List<Object[]> unitsSoldByProduct(@Param("statuses") Collection<String> statuses,
+                                      @Param("since") LocalDateTime since,
+                                      @Param("categoryId") Long categoryId,
+                                      Pageable pageable);
+
+    // ---- Source for the in-memory sales window: [orderId, productId, createdAt, units], refunded lines left out ----
+
+    @Query("""
+           select o.id, oi.productId, o.createdAt, sum(oi.quantity)
+           from Order o join o.items oi
+           where o.status in :statuses
+             and o.createdAt >= :since
+             and oi.productId > 0
+             and (oi.returnStatus is null or oi.returnStatus <> 'REFUNDED')
+           group by o.id, oi.productId, o.createdAt
+           """)
+    List<Object[]> unitsSoldByOrder(@Param("statuses") Collection<String> statuses,
+                                    @Param("since") LocalDateTime since);
 }
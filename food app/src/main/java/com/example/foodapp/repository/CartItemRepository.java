@@ -2,5 +2,14 @@ package com.example.foodapp.repository;
 
 import com.example.foodapp.util.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CartItemRepository extends JpaRepository<CartItem, Long> { }
\ No newline at end of file
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    // write-behind flush replaces a cart's lines wholesale
+    @Modifying
+    @Query("delete from CartItem i where i.cart.id = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
+}
@@ -2,9 +2,11 @@ package com.example.foodapp.repository;
 
 import com.example.foodapp.util.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +18,25 @@ public interface CartRepository  extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUserIdAndStatus(Long userId, Cart.Status status);
 
+    // newest open cart id only; older duplicates are ignored
+    @Query("select max(c.id) from Cart c where c.userId = :userId and c.status = 'OPEN'")
+    Long findActiveCartId(@Param("userId") Long userId);
+
+    @Query("select coalesce(c.revision, 0) from Cart c where c.id = :id")
+    Long revisionOf(@Param("id") Long id);
+
+    // compare-and-set: only moves the revision on if nobody else wrote since it was read
+    @Modifying
+    @Query("""
+           update Cart c set c.revision = coalesce(c.revision, 0) + 1, c.revisedAt = :now
+            where c.id = :id and coalesce(c.revision, 0) = :expected
+           """)
+    int bumpRevision(@Param("id") Long id, @Param("expected") long expected, @Param("now") LocalDateTime now);
+
+    // id + revision of every cart written (by any node) since the given time
+    @Query("select c.id, c.revision from Cart c where c.revisedAt > :since")
+    List<Object[]> revisedSince(@Param("since") LocalDateTime since);
+
     // If you want all carts for user:
     List<Cart> findByUserId(Long userId);
 }
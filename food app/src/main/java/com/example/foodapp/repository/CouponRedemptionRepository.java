@@ -17,4 +17,7 @@ public interface CouponRedemptionRepository extends JpaRepository<CouponRedempti
 
     @Query("select cr.coupon.code from CouponRedemption cr where cr.user = :user")
     List<String> findCodesUsedByUser(@Param("user") User user);
+
+    @Query("select cr.coupon.id from CouponRedemption cr where cr.user.id = :userId")
+    List<Long> findCouponIdsUsedByUser(@Param("userId") Long userId);
 }
@@ -0,0 +1,41 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.DailySalesRollup;
+import com.example.foodapp.model.SalesBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    List<DailySalesRollup> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+
+    boolean existsByDayAndStatusBucket(LocalDate day, SalesBucket statusBucket);
+
+    // Atomic in-place delta; returns 0 when the (day, bucket) row does not exist
+    @Modifying
+    @Query("""
+           update DailySalesRollup r
+              set r.orderCount = r.orderCount + :orders,
+                  r.revenue = r.revenue + :revenue,
+                  r.itemsSold = r.itemsSold + :items,
+                  r.distinctCustomers = :customers
+            where r.day = :day
+              and r.statusBucket = :bucket
+           """)
+    int addDelta(@Param("day") LocalDate day,
+                 @Param("bucket") SalesBucket bucket,
+                 @Param("orders") long orders,
+                 @Param("revenue") BigDecimal revenue,
+                 @Param("items") long items,
+                 @Param("customers") long customers);
+
+    @Modifying
+    @Query("delete from DailySalesRollup r where r.day = :day")
+    int deleteDay(@Param("day") LocalDate day);
+}
@@ -0,0 +1,26 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.NewsletterCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NewsletterCampaignRepository extends JpaRepository<NewsletterCampaign, Long> {
+
+    Optional<NewsletterCampaign> findByCampaignKey(String campaignKey);
+
+    List<NewsletterCampaign> findByStatus(NewsletterCampaign.Status status);
+
+    /** Moves the cursor only if nobody else moved it since {@code from}; 0 means another node did. */
+    @Modifying
+    @Query("""
+           update NewsletterCampaign c
+              set c.lastSubscriberId = :to, c.queuedCount = c.queuedCount + :queued
+            where c.id = :id and c.lastSubscriberId = :from
+           """)
+    int advance(@Param("id") Long id, @Param("from") long from, @Param("to") long to, @Param("queued") int queued);
+}
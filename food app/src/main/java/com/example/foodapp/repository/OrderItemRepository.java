@@ -0,0 +1,17 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // a completed refund takes these lines out of the sales counts
+    @Modifying
+    @Query("update OrderItem i set i.returnStatus = '" + OrderItem.RETURN_REFUNDED + "' where i.id in :ids")
+    int markRefunded(@Param("ids") Collection<Long> ids);
+}
@@ -2,9 +2,11 @@ package com.example.foodapp.repository;
 
 import com.example.foodapp.model.Order;
 import com.example.foodapp.model.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -28,16 +30,47 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
 
     Optional<Order> findById(Long id);
+
+    // Row lock held until commit; serialises payment confirm and webhook for the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> lockById(@Param("id") Long id);
+
     void deleteAllByUserId(Long userId);
     boolean existsByConfirmationNumber(String confirmationNumber);
     // Revenue only for paid (or shipped/delivered) orders.
     @Query("select coalesce(sum(o.total), 0) from Order o where o.status in ('PAID','SHIPPED','DELIVERED')")
     BigDecimal totalRevenue();
 
+    @Query("select coalesce(sum(o.total), 0) from Order o")
+    BigDecimal sumAllTotals();
+
     List<Order> findTop15ByOrderByCreatedAtDesc();
 
+    // Batch-load items for one page of orders (avoids a lazy load per row)
+    @Query("select distinct o from Order o left join fetch o.items where o.id in :ids")
+    List<Order> fetchWithItems(@Param("ids") Collection<Long> ids);
+
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
+    // id + confirmation number for the invoice export, oldest first
+    @Query("""
+           select o.id, o.confirmationNumber from Order o
+            where o.createdAt >= :from and o.createdAt < :to and o.status in :statuses
+            order by o.createdAt, o.id
+           """)
+    List<Object[]> invoiceKeysBetween(@Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to,
+                                      @Param("statuses") Collection<String> statuses);
+
+    // what an invoice shows that can still change after payment: status, refund total, refunded lines
+    @Query("""
+           select o.status, o.refundTotal,
+                  (select count(i) from OrderItem i where i.order = o and i.returnStatus = 'REFUNDED')
+             from Order o where o.id = :id
+           """)
+    List<Object[]> invoiceRevision(@Param("id") Long id);
+
     // Daily buckets (last N days) — MySQL/MariaDB version
     @Query(value = """
             select date(o.created_at) as d, count(*) as c
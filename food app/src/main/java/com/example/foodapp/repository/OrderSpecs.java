@@ -0,0 +1,93 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.Order;
+import com.example.foodapp.model.OrderItem;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public final class OrderSpecs {
+
+    private static final List<String> SEARCH_COLUMNS = List.of("customerName", "address", "street", "city");
+    private static final List<String> SEARCH_COLUMNS_WITH_CONFIRMATION =
+            List.of("customerName", "address", "street", "city", "confirmationNumber");
+
+    private OrderSpecs() {}
+
+    public static Specification<Order> createdFrom(LocalDate from) {
+        if (from == null) return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from.atStartOfDay());
+    }
+
+    public static Specification<Order> createdTo(LocalDate to) {
+        if (to == null) return null;
+        // inclusive day -> half-open upper bound so the createdAt index can be used
+        return (root, query, cb) -> cb.lessThan(root.get("createdAt"), to.plusDays(1).atStartOfDay());
+    }
+
+    public static Specification<Order> forUser(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("userId"), userId);
+    }
+
+    /** "PENDING" matches every PENDING_* status; anything else is an exact match. */
+    public static Specification<Order> hasStatus(String status) {
+        if (status == null || status.isBlank()) return null;
+        String s = status.trim().toUpperCase();
+        if ("PENDING".equals(s)) {
+            return (root, query, cb) -> cb.like(root.get("status"), "PENDING%");
+        }
+        return (root, query, cb) -> cb.equal(root.get("status"), s);
+    }
+
+    /** Customer name, address or any item name contains q (case-insensitive). */
+    public static Specification<Order> matches(String q) {
+        return search(q, false);
+    }
+
+    /** {@link #matches} plus the confirmation number (used by the customer's own order list). */
+    public static Specification<Order> matchesOrConfirmation(String q) {
+        return search(q, true);
+    }
+
+    /*
+     * id in (orders whose columns match UNION orders with a matching item). Each half is one
+     * table, so Postgres can answer it from the trigram indexes (a BitmapOr over the order
+     * columns); OR-ing the item subquery into the outer where clause would scan every order.
+     */
+    private static Specification<Order> search(String q, boolean withConfirmation) {
+        if (q == null || q.trim().isEmpty()) return null;
+        String like = "%" + q.trim().toLowerCase() + "%";
+        List<String> columns = withConfirmation ? SEARCH_COLUMNS_WITH_CONFIRMATION : SEARCH_COLUMNS;
+        return (root, query, cb) -> {
+            Subquery<Long> byOrder = query.subquery(Long.class);
+            Root<Order> o = byOrder.from(Order.class);
+            byOrder.select(o.get("id")).where(cb.or(columns.stream()
+                    .map(c -> cb.like(cb.lower(o.get(c)), like))
+                    .toArray(Predicate[]::new)));
+
+            Subquery<Long> byItem = query.subquery(Long.class);
+            Root<OrderItem> it = byItem.from(OrderItem.class);
+            byItem.select(it.get("order").get("id")).where(cb.like(cb.lower(it.get("productName")), like));
+
+            return root.get("id").in(((HibernateCriteriaBuilder) cb).union(byOrder, byItem));
+        };
+    }
+
+    /** Keyset predicate on (createdAt, id): rows strictly after the cursor in the given direction. */
+    public static Specification<Order> after(LocalDateTime createdAt, Long id, boolean ascending) {
+        if (createdAt == null || id == null) return null;
+        return (root, query, cb) -> ascending
+                ? cb.or(
+                        cb.greaterThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id)))
+                : cb.or(
+                        cb.lessThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+}
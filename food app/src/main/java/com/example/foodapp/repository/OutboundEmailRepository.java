@@ -0,0 +1,63 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.OutboundEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    /** Due transactional mail (no campaign), oldest first. */
+    @Query("""
+           select e.id from OutboundEmail e
+            where e.status = com.example.foodapp.model.OutboundEmail.Status.PENDING
+              and e.nextAttemptAt <= :now
+              and e.campaignId is null
+            order by e.nextAttemptAt, e.id
+           """)
+    List<Long> dueIds(@Param("now") LocalDateTime now, Pageable page);
+
+    @Query("""
+           select distinct e.campaignId from OutboundEmail e
+            where e.status = com.example.foodapp.model.OutboundEmail.Status.PENDING
+              and e.nextAttemptAt <= :now
+              and e.campaignId is not null
+           """)
+    List<Long> dueCampaigns(@Param("now") LocalDateTime now);
+
+    @Query("""
+           select e.id from OutboundEmail e
+            where e.status = com.example.foodapp.model.OutboundEmail.Status.PENDING
+              and e.nextAttemptAt <= :now
+              and e.campaignId = :campaignId
+            order by e.nextAttemptAt, e.id
+           """)
+    List<Long> dueCampaignIds(@Param("campaignId") Long campaignId, @Param("now") LocalDateTime now, Pageable page);
+
+    /** Claims one row for this node; 0 when another node got it first. */
+    @Modifying
+    @Query("""
+           update OutboundEmail e
+              set e.status = com.example.foodapp.model.OutboundEmail.Status.SENDING, e.claimedAt = :now
+            where e.id = :id
+              and e.status = com.example.foodapp.model.OutboundEmail.Status.PENDING
+           """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /** Rows left SENDING by a node that died mid-batch go back to the queue. */
+    @Modifying
+    @Query("""
+           update OutboundEmail e
+              set e.status = com.example.foodapp.model.OutboundEmail.Status.PENDING
+            where e.status = com.example.foodapp.model.OutboundEmail.Status.SENDING
+              and e.claimedAt < :before
+           """)
+    int releaseStale(@Param("before") LocalDateTime before);
+
+    long countByStatus(OutboundEmail.Status status);
+}
@@ -2,7 +2,10 @@
 package com.example.foodapp.repository;
 
 import com.example.foodapp.model.PaymentMethod;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +17,10 @@ public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Lo
 
     Optional<PaymentMethod> findByCode(String code);
 
+    // query cache: ids by code; entities come from the "paymentMethod" region
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "paymentMethod.byCode")
+    })
     Optional<PaymentMethod> findFirstByCodeIgnoreCase(String code);
 }
@@ -1,11 +1,14 @@
 package com.example.foodapp.repository;
 
 import com.example.foodapp.model.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -24,11 +27,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findAllWithCategory();
 
 
-    List<Product> findTop5ByNameContainingIgnoreCase(String q);
-
-    // If you have Category relation (Product.category.name)
-    List<Product> findTop5ByCategory_NameContainingIgnoreCase(String q);
-
     List<Product> findAll(Specification<Product> spec, Sort s);
 
     @Query("""
@@ -54,6 +52,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            """)
     List<Product> searchByKeyword(@Param("q") String q, Pageable pageable);
 
+    // Conditional decrement: 1 row updated, or 0 when stock is short (never goes negative)
+    @Modifying
+    @Query("update Product p set p.stock = p.stock - :qty where p.id = :id and p.stock >= :qty")
+    int decrementIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Query("select coalesce(p.stock, 0) from Product p where p.id = :id")
+    Integer stockOf(@Param("id") Long id);
+
+    // [id, stock] for every product; warms the in-memory stock counters
+    @Query("select p.id, coalesce(p.stock, 0) from Product p")
+    List<Object[]> stockLevels();
+
+    // Row lock held until commit; serialises reservations for the same product
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> lockById(@Param("id") Long id);
+
     // For top or random fallback
     @Query(value = "SELECT p FROM Product p ORDER BY p.id DESC LIMIT :limit",
             nativeQuery = true)
@@ -104,5 +119,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
                                      @Param("min") BigDecimal min,
                                      @Param("max") BigDecimal max,
                                      @Param("categoryId") Long categoryId);
-}
 
+    // ---- Postgres ranked search (search_vector + pg_trgm, see PostgresSearchIndexes) ----
+
+    @Query(value = """
+           select p.id
+           from product p
+           where p.search_vector @@ to_tsquery('simple', :tsq)
+              or lower(p.name) % :q
+           order by ts_rank(p.search_vector, to_tsquery('simple', :tsq))
+                    + similarity(lower(p.name), :q) desc,
+                    p.name asc
+           limit :limit
+           """, nativeQuery = true)
+    List<Long> searchRankedIds(@Param("tsq") String tsq,
+                               @Param("q") String q,
+                               @Param("limit") int limit);
+
+    @Query(value = """
+           select p.id
+           from product p
+           where lower(p.name) like :starts
+              or p.search_vector @@ to_tsquery('simple', :tsq)
+           order by case when lower(p.name) like :starts then 0 else 1 end,
+                    ts_rank(p.search_vector, to_tsquery('simple', :tsq)) desc,
+                    p.name asc
+           limit :limit
+           """, nativeQuery = true)
+    List<Long> autocompleteIds(@Param("starts") String starts,
+                               @Param("tsq") String tsq,
+                               @Param("limit") int limit);
+}
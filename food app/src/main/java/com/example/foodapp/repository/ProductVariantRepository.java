@@ -1,6 +1,35 @@
 package com.example.foodapp.repository;
 
 import com.example.foodapp.model.ProductVariant;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {}
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+
+    // Conditional decrement: 1 row updated, or 0 when stock is short (never goes negative)
+    @Modifying
+    @Query("update ProductVariant v set v.stock = v.stock - :qty where v.id = :id and v.stock >= :qty")
+    int decrementIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Query("select coalesce(v.stock, 0) from ProductVariant v where v.id = :id")
+    Integer stockOf(@Param("id") Long id);
+
+    // [id, stock] for every variant; warms the in-memory stock counters
+    @Query("select v.id, coalesce(v.stock, 0) from ProductVariant v")
+    List<Object[]> stockLevels();
+
+    @Query("select v.id, coalesce(v.stock, 0) from ProductVariant v where v.product.id = :productId")
+    List<Object[]> stockLevelsOfProduct(@Param("productId") Long productId);
+
+    // Row lock held until commit; serialises reservations for the same variant
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from ProductVariant v where v.id = :id")
+    Optional<ProductVariant> lockById(@Param("id") Long id);
+}
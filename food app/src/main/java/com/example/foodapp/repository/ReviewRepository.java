@@ -6,6 +6,7 @@ import com.example.foodapp.model.Review;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -18,14 +19,23 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("select count(r) from Review r where r.product = :product and r.approved = true")
     long countApproved(Product product);
 
+    // productId, count, sum(rating) for every product with approved reviews (RatingSummaryStore warm-up)
+    @Query("select r.product.id, count(r), sum(r.rating) from Review r where r.approved = true group by r.product.id")
+    List<Object[]> approvedRatingStats();
+
+    @Query("select count(r), coalesce(sum(r.rating), 0) from Review r where r.product.id = :productId and r.approved = true")
+    List<Object[]> approvedRatingStatsFor(@Param("productId") Long productId);
+
     boolean existsByProductIdAndUserId(Long productId, Long userId); // “one per user” guard (optional)
 
 
-    // --- new: latest site-wide approved reviews (limit via Pageable) ---
+    // --- new: latest site-wide approved reviews (limit via Pageable), author + product fetched for caching ---
     @Query("""
 
             select r
            from Review r
+           join fetch r.user
+           join fetch r.product
            where r.approved = true
            order by coalesce(r.createdAt, CURRENT_TIMESTAMP) desc, r.id desc
            """)
@@ -0,0 +1,65 @@
+package com.example.foodapp.repository;
+
+import com.example.foodapp.model.StockReservation;
+import com.example.foodapp.model.StockReservation.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    boolean existsByOrderIdAndStatus(Long orderId, Status status);
+
+    boolean existsByOrderId(Long orderId);
+
+    @Query("""
+           select coalesce(sum(r.quantity), 0) from StockReservation r
+            where r.status = com.example.foodapp.model.StockReservation.Status.HELD
+              and r.productId = :productId and r.variantId is null
+           """)
+    long heldForProduct(@Param("productId") Long productId);
+
+    @Query("""
+           select coalesce(sum(r.quantity), 0) from StockReservation r
+            where r.status = com.example.foodapp.model.StockReservation.Status.HELD
+              and r.variantId = :variantId
+           """)
+    long heldForVariant(@Param("variantId") Long variantId);
+
+    // [productId, variantId, quantity] per held SKU
+    @Query("""
+           select r.productId, r.variantId, sum(r.quantity) from StockReservation r
+            where r.status = com.example.foodapp.model.StockReservation.Status.HELD
+            group by r.productId, r.variantId
+           """)
+    List<Object[]> heldBySku();
+
+    @Query("""
+           select r.productId, r.variantId, sum(r.quantity) from StockReservation r
+            where r.status = com.example.foodapp.model.StockReservation.Status.HELD
+              and r.productId in :productIds
+            group by r.productId, r.variantId
+           """)
+    List<Object[]> heldBySku(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select distinct r.productId from StockReservation r where r.orderId = :orderId")
+    List<Long> productIdsOfOrder(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("update StockReservation r set r.status = :to where r.orderId = :orderId and r.status = :from")
+    int moveOrder(@Param("orderId") Long orderId, @Param("from") Status from, @Param("to") Status to);
+
+    @Modifying
+    @Query("""
+           update StockReservation r
+              set r.status = com.example.foodapp.model.StockReservation.Status.RELEASED
+            where r.status = com.example.foodapp.model.StockReservation.Status.HELD
+              and r.expiresAt < :now
+           """)
+    int releaseExpired(@Param("now") LocalDateTime now);
+}
@@ -3,8 +3,14 @@ package com.example.foodapp.repository;
 
 import com.example.foodapp.model.Subscriber;
 import com.example.foodapp.model.Subscriber.Status;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,11 @@ public interface SubscriberRepository extends JpaRepository<Subscriber, Long> {
     Optional<Subscriber> findByConfirmToken(String token);
     Optional<Subscriber> findByUnsubToken(String token);
     List<Subscriber> findByStatus(Status status);
+
+    /** Keyset page: the next subscribers after {@code afterId}, by id. */
+    List<Subscriber> findByStatusAndIdGreaterThanOrderByIdAsc(Status status, Long afterId, Pageable page);
+
+    @Modifying
+    @Query("update Subscriber s set s.lastSentAt = :at where s.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
 }
@@ -50,5 +50,8 @@ public interface AnalyticsService {
 
     public List<Product> topSellers(int limit, int daysBack) ;
 
+    /** Same ranking restricted to one category (null = all). */
+    List<Product> topSellers(int limit, int daysBack, Long categoryId);
+
 
 }
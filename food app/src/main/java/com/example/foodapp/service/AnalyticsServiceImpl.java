@@ -28,6 +28,9 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final SalesRollupService rollups;
+    private final TopSellersService topSellers;
+    private final CatalogCache catalog;
 
 
     @Override
@@ -47,26 +50,33 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     public List<DayBucket> ordersByDay(int lastNDays) {
         LocalDate today = LocalDate.now();
         LocalDate fromDate = today.minusDays(lastNDays - 1); // include today
-        LocalDateTime from = fromDate.atStartOfDay();
-
-        // DB buckets we have
-        Map<String, Long> db = new HashMap<>();
-        for (Object[] row : orderRepository.dailyCountsFrom(from)) {
-            String day = row[0].toString(); // "2025-10-01"
-            long cnt = ((Number) row[1]).longValue();
-            db.put(day, cnt);
+
+        // all buckets count as "orders placed"
+        Map<LocalDate, Long> db = new HashMap<>();
+        for (DailySalesRollup r : rollups.range(fromDate, today)) {
+            db.merge(r.getDay(), r.getOrderCount(), Long::sum);
         }
 
         // Fill empty days with zero for a perfect chart
         List<DayBucket> out = new ArrayList<>(lastNDays);
         for (int i = 0; i < lastNDays; i++) {
             LocalDate d = fromDate.plusDays(i);
-            String key = d.toString();
-            out.add(new DayBucket(key, db.getOrDefault(key, 0L)));
+            out.add(new DayBucket(d.toString(), db.getOrDefault(d, 0L)));
         }
         return out;
     }
 
+    /** Paid-bucket revenue per day over [from, to], from one rollup range scan. */
+    private Map<LocalDate, BigDecimal> paidRevenueByDay(LocalDate from, LocalDate to) {
+        Map<LocalDate, BigDecimal> byDay = new HashMap<>();
+        for (DailySalesRollup r : rollups.range(from, to)) {
+            if (r.getStatusBucket() == SalesBucket.PAID && r.getRevenue() != null) {
+                byDay.merge(r.getDay(), r.getRevenue(), BigDecimal::add);
+            }
+        }
+        return byDay;
+    }
+
 
     @Override
     public TopProducts topProducts(int limit) {
@@ -103,11 +113,28 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     @Override
     public Map<String, Object> kpis() {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime last7 = now.minusDays(7);
         LocalDateTime last30 = now.minusDays(30);
-
-        BigDecimal aov = repo.avgOrderValueSince(last7);
-        if (aov == null) aov = BigDecimal.ZERO;
+        LocalDate today = now.toLocalDate();
+
+        // AOV and refund rate come from the rollup; distinct/repeat customers can't be
+        // summed across days, so they still run against orders (range on created_at).
+        BigDecimal paid7 = BigDecimal.ZERO;
+        long paidCount7 = 0;
+        long paid30 = 0, refunded = 0;
+        for (DailySalesRollup r : rollups.range(today.minusDays(30), today)) {
+            boolean in7 = !r.getDay().isBefore(today.minusDays(7));
+            if (r.getStatusBucket() == SalesBucket.PAID) {
+                paid30 += r.getOrderCount();
+                if (in7) {
+                    paidCount7 += r.getOrderCount();
+                    if (r.getRevenue() != null) paid7 = paid7.add(r.getRevenue());
+                }
+            } else if (r.getStatusBucket() == SalesBucket.REFUNDED) {
+                refunded += r.getOrderCount();
+            }
+        }
+        BigDecimal aov = paidCount7 == 0 ? BigDecimal.ZERO
+                : paid7.divide(BigDecimal.valueOf(paidCount7), 2, RoundingMode.HALF_UP);
 
         long distinct = safeLong(repo.distinctCustomersSince(last30));
         long repeat = safeLong(repo.repeatCustomersSince(Timestamp.valueOf(last30)));
@@ -115,8 +142,7 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         double repeatRate = distinct == 0 ? 0d :
                 (repeat * 100.0) / distinct;
 
-        long refunded = safeLong(repo.refundedOrdersSince(last30));
-        long total30 = safeLong(repo.totalOrdersSince(last30));
+        long total30 = paid30 + refunded;
         double refundRate = total30 == 0 ? 0d :
                 (refunded * 100.0) / total30;
 
@@ -142,22 +168,7 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public Series revenueSeries(LocalDate from, LocalDate to) {
-        // half-open [from, to)
-        LocalDateTime f = from.atStartOfDay();
-        LocalDateTime t = to.plusDays(1).atStartOfDay();
-
-        // fetch rows from DB
-        List<Object[]> rows = orderRepository.revenueByDay(f, t);
-
-        // map to a yyyy-MM-dd -> value map
-        Map<LocalDate, BigDecimal> byDay = new HashMap<>();
-        for (Object[] r : rows) {
-            LocalDate d = (r[0] instanceof java.sql.Date sd)
-                    ? sd.toLocalDate()
-                    : LocalDate.parse(String.valueOf(r[0]));
-            BigDecimal v = new BigDecimal(String.valueOf(r[1]));
-            byDay.put(d, v);
-        }
+        Map<LocalDate, BigDecimal> byDay = paidRevenueByDay(from, to);
 
         // fill every day in range (missing days = 0)
         List<String> labels = new ArrayList<>();
@@ -174,17 +185,12 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     public LinkedHashMap<String, BigDecimal> revenueByDay(int lastNDays) {
         var fmt = java.time.format.DateTimeFormatter.ofPattern("MMM d");
         var today = java.time.LocalDate.now();
+        Map<LocalDate, BigDecimal> byDay = paidRevenueByDay(today.minusDays(lastNDays - 1), today);
 
         var out = new LinkedHashMap<String, BigDecimal>();
         for (int i = lastNDays - 1; i >= 0; i--) {
             var day = today.minusDays(i);
-            var start = day.atStartOfDay();
-            var end = day.plusDays(1).atStartOfDay();
-
-            BigDecimal revenue = orderRepository.sumGrandTotalBetween(start, end)
-                    .orElse(java.math.BigDecimal.ZERO);
-
-            out.put(day.format(fmt), revenue);
+            out.put(day.format(fmt), byDay.getOrDefault(day, BigDecimal.ZERO));
         }
         return out;
     }
@@ -237,51 +243,24 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public List<Product> topSellers(int limit, int daysBack) {
-        // LocalDateTime (matches your o.createdAt type)
-        LocalDateTime since = null;
-        if (daysBack > 0) {
-            since = LocalDateTime.ofInstant(
-                    Instant.now().minus(Duration.ofDays(daysBack)),
-                    ZoneOffset.UTC
-            );
-        }
-
-        // Because Order.status is STRING in DB
-        Set<String> statusNames = Set.of("PAID", "FULFILLED", "SHIPPED", "COMPLETED","PENDING_PAYMENT");
-
-        List<ProductSales> agg = orderRepository.findTopSellingProductsNative(
-                statusNames, since, PageRequest.of(0, limit)
-        );
-
-// Instead of mapping to Product objects, find matching products by name
-        List<Product> top = agg.stream()
-                .map(ps -> productRepository.findByNameIgnoreCase(ps.getProductName()).orElse(null))
-                .filter(Objects::nonNull)
-                .limit(limit)
-                .collect(Collectors.toList());
+        return topSellers(limit, daysBack, null);
+    }
 
-        // Fallback (fill with newest products) using findAll()
-        if (top.size() < limit) {
-            int remaining = limit - top.size();
-            var existingIds = top.stream()
-                    .map(Product::getId)
-                    .collect(java.util.stream.Collectors.toSet());
-
-            // use id desc instead of createdAt
-            var page = productRepository.findAll(
-                    org.springframework.data.domain.PageRequest.of(
-                            0, remaining,
-                            org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.DESC, "id")
-                    )
-            );
-
-            page.getContent().stream()
-                    .filter(p -> !existingIds.contains(p.getId()))
-                    .limit(remaining)
-                    .forEach(top::add);
+    /** Ranked by units sold per product id (see TopSellersService), topped up with the newest products. */
+    @Override
+    public List<Product> topSellers(int limit, int daysBack, Long categoryId) {
+        List<Product> top = new ArrayList<>(topSellers.top(limit, daysBack, categoryId));
+        if (top.size() >= limit) return top;
+
+        // Fallback (fill with newest products), from the catalog snapshot
+        Set<Long> existingIds = top.stream().map(Product::getId).collect(Collectors.toSet());
+        List<Product> all = catalog.current().products();
+        for (int i = all.size() - 1; i >= 0 && top.size() < limit; i--) {
+            Product p = all.get(i);
+            if (existingIds.contains(p.getId())) continue;
+            if (categoryId != null && (p.getCategory() == null || !categoryId.equals(p.getCategory().getId()))) continue;
+            top.add(p);
         }
-
-
         return top;
     }
 }
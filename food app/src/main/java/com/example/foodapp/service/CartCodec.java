@@ -0,0 +1,145 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.util.Cart;
+import com.example.foodapp.util.CartItem;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compact binary form of a {@link Cart}: a version byte, the cart header, then one record per
+ * line with nullable fields flagged. A typical cart is a few hundred bytes, versus several KB
+ * for the Java-serialized entity graph. Ids of lines are not kept; they are reassigned on flush.
+ */
+final class CartCodec {
+
+    private static final byte VERSION = 1;
+
+    private CartCodec() {}
+
+    static byte[] encode(Cart cart) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            writeLong(out, cart.getUserId());
+            out.writeByte(cart.getStatus() == null ? 0 : cart.getStatus().ordinal());
+            writeDecimal(out, cart.getDiscount());
+            writeString(out, cart.getAppliedCouponCode());
+            writeLines(out, cart.getItems());
+            writeLines(out, cart.getSavedForLater());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Cart decode(Long id, byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte version = in.readByte();
+            if (version != VERSION) throw new IllegalStateException("Unknown cart format " + version);
+
+            Cart cart = new Cart();
+            cart.setId(id);
+            cart.setUserId(readLong(in));
+            cart.setStatus(Cart.Status.values()[in.readByte()]);
+            BigDecimal discount = readDecimal(in);
+            cart.setDiscount(discount == null ? BigDecimal.ZERO : discount);
+            cart.setAppliedCouponCode(readString(in));
+            readLines(in, cart.getItems(), false);
+            readLines(in, cart.getSavedForLater(), true);
+            return cart;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLines(DataOutputStream out, List<CartItem> lines) throws IOException {
+        out.writeShort(lines == null ? 0 : lines.size());
+        if (lines == null) return;
+        for (CartItem it : lines) {
+            writeLong(out, it.getProductId());
+            writeLong(out, it.getVariantId());
+            out.writeInt(it.getQty());
+            writeDecimal(out, it.getPrice());
+            writeString(out, it.getName());
+            writeString(out, it.getImageUrl());
+            writeString(out, it.getDescription());
+            out.writeInt(it.getWeightGrams() == null ? -1 : it.getWeightGrams());
+            out.writeByte(it.getType() == null ? 0 : it.getType().ordinal());
+            writeString(out, it.getSku());
+            writeString(out, it.getMetaJson());
+        }
+    }
+
+    private static void readLines(DataInputStream in, List<CartItem> into, boolean savedForLater) throws IOException {
+        int n = in.readUnsignedShort();
+        for (int i = 0; i < n; i++) {
+            CartItem it = new CartItem();
+            it.setProductId(readLong(in));
+            it.setVariantId(readLong(in));
+            it.setQty(in.readInt());
+            it.setPrice(readDecimal(in));
+            it.setName(readString(in));
+            it.setImageUrl(readString(in));
+            it.setDescription(readString(in));
+            int w = in.readInt();
+            it.setWeightGrams(w < 0 ? null : w);
+            it.setType(CartItem.Type.values()[in.readByte()]);
+            it.setSku(readString(in));
+            it.setMetaJson(readString(in));
+            it.setSavedForLater(savedForLater);
+            into.add(it);
+        }
+    }
+
+    private static void writeLong(DataOutputStream out, Long v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v != null) out.writeLong(v);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // unscaled value + scale keeps prices exact
+    private static void writeDecimal(DataOutputStream out, BigDecimal v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v == null) return;
+        byte[] unscaled = v.unscaledValue().toByteArray();
+        out.writeByte(v.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
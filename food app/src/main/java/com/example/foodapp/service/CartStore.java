@@ -0,0 +1,512 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Product;
+import com.example.foodapp.model.ProductVariant;
+import com.example.foodapp.model.User;
+import com.example.foodapp.repository.CartItemRepository;
+import com.example.foodapp.repository.CartRepository;
+import com.example.foodapp.util.Cart;
+import com.example.foodapp.util.CartItem;
+import com.example.foodapp.web.SessionUser;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The one place carts live.
+ *
+ * The session only holds the cart id ({@link #SESSION_KEY}). Carts are kept in an in-memory L1
+ * as compact {@link CartCodec} bytes; every request decodes its own {@link Cart} copy, and changes
+ * go through {@link #update}, which applies them one at a time per cart. Changed carts are marked
+ * dirty and written to the cart/cart_items tables by a background flush, so any number of changes
+ * between two flushes cost one write. Logged-in users are looked up by userId, which makes their
+ * cart follow them across devices and node restarts; a guest cart is adopted (or merged) on login.
+ *
+ * Each cart row carries a revision that every flush bumps, with the time it moved. Every
+ * {@code app.cart.sync-ms} the store asks for carts revised since its last look and drops the
+ * clean L1 entries that another node has written, so reads don't query the database and a change
+ * made elsewhere shows up here within about that interval. As a safety net for a missed poll, an
+ * entry is also checked against the stored revision once it is older than
+ * {@code app.cart.revalidate-ms} (default five minutes); that is the most a cart can be stale.
+ *
+ * An entry keeps the changes made since the revision it is based on. A flush only applies on top
+ * of that revision; when another node got there first, the stored cart is reloaded, the pending
+ * changes are applied to it again in order, and the write is retried, so a shopper's change is
+ * never lost to a concurrent write elsewhere.
+ */
+@Service
+public class CartStore {
+
+    public static final String SESSION_KEY = "CART_ID";
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+    private static final String DEFAULT_IMAGE = "/images/chilli%20powder.jpeg";
+
+    private final CartRepository carts;
+    private final CartItemRepository cartItems;
+    private final TransactionTemplate tx;
+
+    private final Map<Long, Entry> l1 = new ConcurrentHashMap<>();
+    // kept next to l1 so the badge count never decodes a cart
+    private final Map<Long, Summary> summaries = new ConcurrentHashMap<>();
+    private final Map<Long, UserCart> cartIdByUser = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // changes to one cart (and creating a session's first cart) are applied one at a time
+    private final Object[] locks = new Object[64];
+
+    /**
+     * Encoded cart, the stored revision it is based on, when that was last confirmed, and the
+     * changes applied on top of that revision that are not written yet (oldest first).
+     */
+    private record Entry(byte[] data, long revision, long checkedAt, List<Consumer<Cart>> pending) { }
+
+    private record Summary(Long userId, int quantity) { }
+
+    /** A user's open cart id, or none (cartId null) as of {@code checkedAt}. */
+    private record UserCart(Long cartId, long checkedAt) { }
+
+    @Value("${app.cart.l1-max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${app.cart.revalidate-ms:300000}")
+    private long revalidateMs;
+
+    @Value("${app.cart.flush-attempts:3}")
+    private int flushAttempts;
+
+    // revisions written by other nodes are looked for from here on (minus a margin for clock skew)
+    private volatile LocalDateTime syncedUpTo = LocalDateTime.now();
+
+    @Value("${app.cart.no-cart-ttl-ms:10000}")
+    private long noCartTtlMs;
+
+    public CartStore(CartRepository carts, CartItemRepository cartItems, PlatformTransactionManager txManager) {
+        this.carts = carts;
+        this.cartItems = cartItems;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+    }
+
+    /* =========================
+       Reads
+       ========================= */
+
+    /** This session's cart (a private copy); an empty, unsaved cart when there is none yet. */
+    public Cart current(HttpSession session) {
+        if (session == null) return new Cart();
+        Long userId = userIdOf(session);
+        Long id = session.getAttribute(SESSION_KEY) instanceof Long l ? l : null;
+
+        if (id == null && userId != null) {
+            id = cartIdForUser(userId);
+            if (id != null) session.setAttribute(SESSION_KEY, id);
+        }
+        if (id == null) return new Cart();
+
+        Cart cart = load(id);
+        if (cart == null) {
+            session.removeAttribute(SESSION_KEY);
+            Long gone = id;
+            if (userId != null) cartIdByUser.computeIfPresent(userId, (k, v) -> gone.equals(v.cartId()) ? null : v);
+            return new Cart();
+        }
+        if (userId != null && cart.getUserId() == null) {
+            cart = adopt(session, cart, userId);
+        }
+        return cart;
+    }
+
+    /** Cross-device lookup: the user's open cart, or null. */
+    public Cart forUser(Long userId) {
+        Long id = userId == null ? null : cartIdForUser(userId);
+        return id == null ? null : load(id);
+    }
+
+    /** Item count for the header badge; answered from the maintained summary when the cart is cached. */
+    public int count(HttpSession session) {
+        Long id = session != null && session.getAttribute(SESSION_KEY) instanceof Long l ? l : null;
+        if (id != null) {
+            Summary s = summaries.get(id);
+            // an unowned cart seen by a logged-in user still has to go through adoption
+            if (s != null && isCurrent(id) && Objects.equals(s.userId(), userIdOf(session))) return s.quantity();
+        } else {
+            Long userId = userIdOf(session);
+            if (userId == null || cartIdForUser(userId) == null) return 0;
+        }
+        return current(session).getTotalQuantity();
+    }
+
+    /* =========================
+       Writes
+       ========================= */
+
+    /**
+     * Applies {@code change} to this session's cart and schedules it for the next flush. Changes
+     * to the same cart run one after another, each on the result of the previous one, so two
+     * requests adding at once both land. A first non-empty change creates the cart and binds it
+     * to the session. Returns the changed cart.
+     */
+    public Cart update(HttpSession session, Consumer<Cart> change) {
+        if (session == null) {
+            Cart detached = new Cart();
+            change.accept(detached);
+            return detached;
+        }
+        Long id = current(session).getId();
+        if (id == null) {
+            synchronized (lockFor(session)) {
+                // a parallel request of this session may have created it meanwhile
+                id = current(session).getId();
+                if (id == null) {
+                    Cart cart = new Cart();
+                    change.accept(cart);
+                    if (cart.getItems().isEmpty() && cart.getSavedForLater().isEmpty()) return cart;
+                    cart.setUserId(userIdOf(session));
+                    cart.setId(allocate(cart.getUserId()));
+                    // the stored row is empty and owned already, so the change alone replays onto it
+                    l1.put(cart.getId(), new Entry(CartCodec.encode(cart), 0, System.currentTimeMillis(), List.of(change)));
+                    summarize(cart);
+                    dirty.add(cart.getId());
+                    session.setAttribute(SESSION_KEY, cart.getId());
+                    return cart;
+                }
+            }
+        }
+
+        synchronized (lockFor(id)) {
+            Cart latest = load(id);
+            if (latest == null) return new Cart();
+            change.accept(latest);
+            put(latest, change);
+            return latest;
+        }
+    }
+
+    /** Adds a product (or one of its variants) as a size-labelled line, merging with an equal line. */
+    public Cart add(HttpSession session, Product p, ProductVariant variant, int qty) {
+        return update(session, cart -> addLine(cart, p, variant, qty));
+    }
+
+    private static void addLine(Cart cart, Product p, ProductVariant variant, int qty) {
+        Integer weight = variant != null ? variant.getWeight() : p.getWeight();
+        String size = weight != null ? weight + " g" : (variant != null ? "Variant" : "Default");
+        String displayName = p.getName() + " — " + size;
+        int safeQty = Math.max(1, qty);
+
+        Optional<CartItem> existing = cart.getItems().stream()
+                .filter(i -> Objects.equals(i.getProductId(), p.getId()) && Objects.equals(i.getName(), displayName))
+                .findFirst();
+        if (existing.isPresent()) {
+            existing.get().setQty(existing.get().getQty() + safeQty);
+        } else {
+            String img = (p.getImageUrl() == null || p.getImageUrl().isBlank()) ? DEFAULT_IMAGE : p.getImageUrl();
+            CartItem line = new CartItem(p.getId(), displayName, safeQty,
+                    variant != null ? variant.getPrice() : p.getPrice(), img, p.getDescription(), weight);
+            line.setVariantId(variant != null ? variant.getId() : null);
+            cart.getItems().add(line);
+        }
+    }
+
+    /** Empties the cart (items, saved-for-later and coupon) but keeps it bound to the session. */
+    public void clear(HttpSession session) {
+        update(session, cart -> {
+            cart.clear();
+            cart.setDiscount(BigDecimal.ZERO);
+            cart.setAppliedCouponCode(null);
+        });
+    }
+
+    /* =========================
+       Write-behind
+       ========================= */
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-ms:2000}")
+    public void flush() {
+        for (Long id : List.copyOf(dirty)) {
+            // removed before reading, so a save racing this write is flushed next time
+            dirty.remove(id);
+            try {
+                if (!flushOne(id)) {
+                    dirty.add(id);
+                    log.warn("Cart #{} still racing another node after {} attempts, will retry", id, flushAttempts);
+                }
+            } catch (RuntimeException ex) {
+                dirty.add(id);
+                log.warn("Cart #{} flush failed, will retry: {}", id, ex.getMessage());
+            }
+        }
+        evictClean();
+    }
+
+    /** Writes one cart, rebasing its pending changes onto the stored cart whenever another node wrote first. */
+    private boolean flushOne(Long id) {
+        for (int attempt = 0; attempt < Math.max(1, flushAttempts); attempt++) {
+            Entry e = l1.get(id);
+            if (e == null) return true;
+            Boolean written = tx.execute(s -> write(CartCodec.decode(id, e.data()), e.revision()));
+            if (Boolean.TRUE.equals(written)) {
+                // changes made meanwhile were applied on top of what was just written: they stay pending
+                l1.computeIfPresent(id, (k, cur) -> cur.revision() == e.revision()
+                        ? new Entry(cur.data(), e.revision() + 1, System.currentTimeMillis(),
+                                List.copyOf(cur.pending().subList(e.pending().size(), cur.pending().size())))
+                        : cur);
+                return true;
+            }
+            if (!rebase(id)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Another node wrote the cart: replays this node's pending changes, in order, on the stored
+     * cart. False when there is nothing left to write to (the cart was checked out or removed).
+     */
+    private boolean rebase(Long id) {
+        synchronized (lockFor(id)) {
+            Entry cur = l1.get(id);
+            if (cur == null) return false;
+            Entry stored = tx.execute(s -> carts.findById(id)
+                    .map(c -> new Entry(CartCodec.encode(c), c.getRevision() == null ? 0 : c.getRevision(),
+                            System.currentTimeMillis(), List.of()))
+                    .orElse(null));
+            Cart base = stored == null ? null : CartCodec.decode(id, stored.data());
+            if (base == null || base.getStatus() != Cart.Status.OPEN) {
+                log.warn("Cart #{} was closed on another node; {} local change(s) have no cart to go to",
+                        id, cur.pending().size());
+                l1.remove(id);
+                summaries.remove(id);
+                return false;
+            }
+            for (Consumer<Cart> change : cur.pending()) change.accept(base);
+            l1.put(id, new Entry(CartCodec.encode(base), stored.revision(), System.currentTimeMillis(), cur.pending()));
+            summarize(base);
+            log.info("Cart #{} was changed on another node; re-applied {} local change(s) on revision {}",
+                    id, cur.pending().size(), stored.revision());
+            return true;
+        }
+    }
+
+    /**
+     * Drops clean L1 entries for carts another node has written since the last look. Entries with
+     * pending changes stay; their flush finds the newer revision and rebases.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.sync-ms:2000}")
+    public void pickUpRemoteWrites() {
+        LocalDateTime started = LocalDateTime.now();
+        if (!l1.isEmpty()) {
+            List<Object[]> revised = tx.execute(s -> carts.revisedSince(syncedUpTo.minusSeconds(30)));
+            for (Object[] r : revised) {
+                Long id = ((Number) r[0]).longValue();
+                long revision = r[1] == null ? 0 : ((Number) r[1]).longValue();
+                Entry gone = l1.computeIfPresent(id, (k, cur) ->
+                        cur.revision() < revision && cur.pending().isEmpty() && !dirty.contains(id) ? null : cur);
+                if (gone == null) summaries.remove(id);
+            }
+        }
+        syncedUpTo = started;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /** Writes the cart if the row is still at {@code revision}; false when another write got there first. */
+    private boolean write(Cart cart, long revision) {
+        if (carts.bumpRevision(cart.getId(), revision, LocalDateTime.now()) == 0) return false;
+        Cart row = carts.findById(cart.getId()).orElse(null);
+        if (row == null) return false;
+        row.setUserId(cart.getUserId());
+        row.setStatus(cart.getStatus());
+        row.setDiscount(cart.getDiscount());
+        row.setAppliedCouponCode(cart.getAppliedCouponCode());
+
+        cartItems.deleteByCartId(cart.getId());
+        List<CartItem> lines = new ArrayList<>(cart.getItems());
+        lines.addAll(cart.getSavedForLater());
+        for (CartItem it : lines) it.setCart(row);
+        cartItems.saveAll(lines);
+        return true;
+    }
+
+    /* =========================
+       Helpers
+       ========================= */
+
+    /**
+     * Replaces a cart that was read from L1 with the result of {@code change}; the new entry stays
+     * based on the same stored revision, with the change queued after the ones already pending.
+     */
+    private void put(Cart cart, Consumer<Cart> change) {
+        byte[] data = CartCodec.encode(cart);
+        long now = System.currentTimeMillis();
+        long evicted = l1.containsKey(cart.getId()) ? 0 : revisionOf(cart.getId());
+        l1.compute(cart.getId(), (k, cur) -> cur == null
+                ? new Entry(data, evicted, now, List.of(change))
+                : new Entry(data, cur.revision(), now, append(cur.pending(), change)));
+        summarize(cart);
+        dirty.add(cart.getId());
+    }
+
+    private static List<Consumer<Cart>> append(List<Consumer<Cart>> pending, Consumer<Cart> change) {
+        List<Consumer<Cart>> out = new ArrayList<>(pending.size() + 1);
+        out.addAll(pending);
+        out.add(change);
+        return List.copyOf(out);
+    }
+
+    private void summarize(Cart cart) {
+        if (cart.getStatus() == null || cart.getStatus() == Cart.Status.OPEN) {
+            summaries.put(cart.getId(), new Summary(cart.getUserId(), cart.getTotalQuantity()));
+        } else {
+            summaries.remove(cart.getId());
+        }
+    }
+
+    private Cart load(Long id) {
+        Entry e = l1.get(id);
+        if (e != null && !isCurrent(id)) {
+            Long stored = tx.execute(s -> carts.revisionOf(id));
+            if (stored != null && stored == e.revision()) {
+                Entry checked = new Entry(e.data(), e.revision(), System.currentTimeMillis(), e.pending());
+                e = l1.replace(id, e, checked) ? checked : l1.get(id);
+            } else {
+                // written by another node (or gone): reload, unless a local change got in meanwhile
+                Entry seen = e;
+                l1.computeIfPresent(id, (k, cur) -> cur == seen ? null : cur);
+                e = l1.get(id);
+            }
+        }
+        if (e == null) {
+            Entry fresh = tx.execute(s -> carts.findById(id)
+                    .filter(c -> c.getStatus() == null || c.getStatus() == Cart.Status.OPEN)
+                    .map(c -> new Entry(CartCodec.encode(c), c.getRevision() == null ? 0 : c.getRevision(),
+                            System.currentTimeMillis(), List.of()))
+                    .orElse(null));
+            if (fresh == null) {
+                summaries.remove(id);
+                return null;
+            }
+            Entry raced = l1.putIfAbsent(id, fresh);
+            e = raced != null ? raced : fresh;
+        }
+        Cart cart = CartCodec.decode(id, e.data());
+        summarize(cart);
+        return cart.getStatus() == Cart.Status.OPEN ? cart : null;
+    }
+
+    /** Unflushed local changes, or confirmed against the stored revision within revalidate-ms (remote writes are dropped by the poll). */
+    private boolean isCurrent(Long id) {
+        Entry e = l1.get(id);
+        return e != null && (dirty.contains(id) || System.currentTimeMillis() - e.checkedAt() < revalidateMs);
+    }
+
+    private long revisionOf(Long id) {
+        Long r = tx.execute(s -> carts.revisionOf(id));
+        return r == null ? 0 : r;
+    }
+
+    /** The user's open cart id; "no cart" is remembered for no-cart-ttl-ms so the badge doesn't query every request. */
+    private Long cartIdForUser(Long userId) {
+        UserCart known = cartIdByUser.get(userId);
+        if (known != null && (known.cartId() != null || System.currentTimeMillis() - known.checkedAt() < noCartTtlMs)) {
+            return known.cartId();
+        }
+        Long id = carts.findActiveCartId(userId);
+        cartIdByUser.put(userId, new UserCart(id, System.currentTimeMillis()));
+        return id;
+    }
+
+    private Long allocate(Long userId) {
+        Long id = tx.execute(s -> {
+            Cart row = new Cart();
+            row.setUserId(userId);
+            row.setStatus(Cart.Status.OPEN);
+            return carts.save(row).getId();
+        });
+        if (userId != null) cartIdByUser.put(userId, new UserCart(id, System.currentTimeMillis()));
+        return id;
+    }
+
+    private Object lockFor(Long cartId) {
+        return locks[Math.floorMod(cartId.hashCode(), locks.length)];
+    }
+
+    private Object lockFor(HttpSession session) {
+        return locks[Math.floorMod(session.getId().hashCode(), locks.length)];
+    }
+
+    /** First request after login: the guest cart becomes the user's, or is merged into their existing one. */
+    private Cart adopt(HttpSession session, Cart guest, Long userId) {
+        Long existingId = cartIdForUser(userId);
+        Cart target = existingId == null || existingId.equals(guest.getId()) ? null : load(existingId);
+        if (target == null) {
+            Consumer<Cart> own = c -> c.setUserId(userId);
+            own.accept(guest);
+            cartIdByUser.put(userId, new UserCart(guest.getId(), System.currentTimeMillis()));
+            put(guest, own);
+            return guest;
+        }
+
+        // decoded afresh on every replay, so a rebase never shares line objects with an earlier result
+        Long guestId = guest.getId();
+        byte[] guestData = CartCodec.encode(guest);
+        Consumer<Cart> merge = c -> mergeLines(c, CartCodec.decode(guestId, guestData).getItems());
+        Consumer<Cart> retire = c -> {
+            c.clear();
+            c.setStatus(Cart.Status.ABANDONED);
+        };
+        merge.accept(target);
+        retire.accept(guest);
+        put(guest, retire);
+        put(target, merge);
+        session.setAttribute(SESSION_KEY, target.getId());
+        return target;
+    }
+
+    private static void mergeLines(Cart target, List<CartItem> lines) {
+        for (CartItem it : lines) {
+            Optional<CartItem> same = target.getItems().stream()
+                    .filter(t -> Objects.equals(t.getProductId(), it.getProductId())
+                            && Objects.equals(t.getName(), it.getName()))
+                    .findFirst();
+            if (same.isPresent()) same.get().setQty(same.get().getQty() + it.getQty());
+            else target.getItems().add(it);
+        }
+    }
+
+    private void evictClean() {
+        int over = l1.size() - maxEntries;
+        if (over <= 0) return;
+        for (Iterator<Long> it = l1.keySet().iterator(); it.hasNext() && over > 0; ) {
+            Long id = it.next();
+            if (!dirty.contains(id)) {
+                it.remove();
+                summaries.remove(id);
+                over--;
+            }
+        }
+        if (cartIdByUser.size() > maxEntries) cartIdByUser.clear();
+    }
+
+    private static Long userIdOf(HttpSession session) {
+        Object u = session == null ? null : session.getAttribute("USER");
+        if (u instanceof User user) return user.getId();
+        if (u instanceof SessionUser su) return su.id();
+        return null;
+    }
+}
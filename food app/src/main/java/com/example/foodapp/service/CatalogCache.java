@@ -0,0 +1,83 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Category;
+import com.example.foodapp.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CatalogSnapshot} in memory.
+ *
+ * The snapshot is loaded through its own EntityManager so the cached entities are never
+ * attached to a request's persistence context (admin edits always go through findById).
+ * A {@link CatalogChangedEvent} triggers a rebuild after commit; the new snapshot is
+ * swapped in atomically and an older build can never replace a newer one.
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    private final EntityManagerFactory emf;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    public CatalogCache(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    public CatalogSnapshot current() {
+        CatalogSnapshot snap = current.get();
+        if (snap != null) return snap;
+        synchronized (this) {
+            snap = current.get();
+            return snap != null ? snap : rebuild();
+        }
+    }
+
+    // runs before other catalog listeners so they see the new snapshot
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        CatalogSnapshot snap = rebuild();
+        log.debug("Catalog snapshot v{} rebuilt ({}), {} products",
+                snap.version(), event.reason(), snap.products().size());
+    }
+
+    public CatalogSnapshot rebuild() {
+        long version = generation.incrementAndGet();
+        CatalogSnapshot built = load(version);
+        return current.accumulateAndGet(built,
+                (cur, next) -> cur == null || next.version() > cur.version() ? next : cur);
+    }
+
+    private CatalogSnapshot load(long version) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Product> products = em.createQuery("""
+                    select distinct p
+                    from Product p
+                    left join fetch p.category c
+                    left join fetch p.variants v
+                    order by p.id
+                    """, Product.class).getResultList();
+
+            List<Category> categories = em.createQuery(
+                    "select c from Category c order by c.id", Category.class).getResultList();
+
+            return CatalogSnapshot.of(version, products, categories);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.foodapp.service;
+
+/**
+ * Published whenever products, variants, categories or stock change.
+ * {@link CatalogCache} rebuilds its snapshot once the surrounding transaction commits;
+ * other listeners can use {@code kind}/{@code productId} to update incrementally.
+ */
+public record CatalogChangedEvent(String reason, Kind kind, Long productId) {
+
+    public enum Kind { PRODUCT_SAVED, PRODUCT_DELETED, CATEGORY, STOCK }
+
+    public static CatalogChangedEvent productSaved(Long productId) {
+        return new CatalogChangedEvent("product saved #" + productId, Kind.PRODUCT_SAVED, productId);
+    }
+
+    public static CatalogChangedEvent productDeleted(Long productId) {
+        return new CatalogChangedEvent("product deleted #" + productId, Kind.PRODUCT_DELETED, productId);
+    }
+
+    public static CatalogChangedEvent category(String reason) {
+        return new CatalogChangedEvent(reason, Kind.CATEGORY, null);
+    }
+
+    public static CatalogChangedEvent stock(String reason) {
+        return new CatalogChangedEvent(reason, Kind.STOCK, null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Category;
+import com.example.foodapp.model.Product;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable, versioned view of the catalog (products with category + variants, and categories).
+ * Entities inside are detached and must be treated as read-only.
+ */
+public record CatalogSnapshot(long version,
+                              Instant builtAt,
+                              List<Product> products,
+                              Map<Long, Product> byId,
+                              List<Category> categories) {
+
+    public static CatalogSnapshot of(long version, List<Product> products, List<Category> categories) {
+        Map<Long, Product> byId = new LinkedHashMap<>();
+        for (Product p : products) {
+            if (p != null && p.getId() != null) byId.putIfAbsent(p.getId(), p);
+        }
+        return new CatalogSnapshot(
+                version,
+                Instant.now(),
+                List.copyOf(byId.values()),
+                Collections.unmodifiableMap(byId),
+                List.copyOf(categories)
+        );
+    }
+
+    public Product product(Long id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public List<Product> byCategory(Long categoryId) {
+        if (categoryId == null) return List.of();
+        List<Product> out = new ArrayList<>();
+        for (Product p : products) {
+            if (p.getCategory() != null && categoryId.equals(p.getCategory().getId())) out.add(p);
+        }
+        return out;
+    }
+}
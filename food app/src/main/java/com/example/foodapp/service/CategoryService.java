@@ -2,8 +2,34 @@ package com.example.foodapp.service;
 
 import com.example.foodapp.model.Category;
 import com.example.foodapp.repository.CategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
-@Service public class CategoryService { private final CategoryRepository repo; public CategoryService(CategoryRepository repo){this.repo=repo;} public List<Category> findAll(){return repo.findAll();} public Category save(Category c){return repo.save(c);} public void delete(Long id){repo.deleteById(id);} }
\ No newline at end of file
+@Service
+public class CategoryService {
+    private final CategoryRepository repo;
+    private final ApplicationEventPublisher events;
+    private final CatalogCache catalog;
+
+    public CategoryService(CategoryRepository repo, ApplicationEventPublisher events, CatalogCache catalog) {
+        this.repo = repo;
+        this.events = events;
+        this.catalog = catalog;
+    }
+
+    /** All categories, from the catalog snapshot (rebuilt after save/delete below). Read-only. */
+    public List<Category> findAll() { return catalog.current().categories(); }
+
+    public Category save(Category c) {
+        Category saved = repo.save(c);
+        events.publishEvent(CatalogChangedEvent.category("category saved #" + saved.getId()));
+        return saved;
+    }
+
+    public void delete(Long id) {
+        repo.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.category("category deleted #" + id));
+    }
+}
@@ -20,6 +20,8 @@ public class CouponService {
                          CouponRedemptionRepository redemptionRepo) {
         this.repo = repo;
         this.redemptionRepo = redemptionRepo;
+        // carts read back from the session store only have the code; "coupon.byCode" makes this cheap
+        SessionCart.useCouponLookup(code -> repo.findByCodeIgnoreCase(code).orElse(null));
     }
 
     /** Apply a code directly to the SessionCart (validates first) when we know the user. */
@@ -66,7 +68,7 @@ public class CouponService {
             return new Validation(null, "Code not found.");
         }
 
-        // 🔒 Only once per user
+        // 🔒 Only once per user; deliberately not cached, it must see redemptions made on any node
         if (user != null && redemptionRepo != null &&
                 redemptionRepo.existsByUserAndCoupon(user, c)) {
             return new Validation(null, "You have already used this coupon.");
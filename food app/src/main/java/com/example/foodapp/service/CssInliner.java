@@ -0,0 +1,275 @@
+package com.example.foodapp.service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Copies the rules of a template's {@code <style>} blocks onto matching elements as
+ * {@code style} attributes, for mail clients that drop or ignore stylesheets.
+ *
+ * Works on template source, so it runs once per template version rather than per send.
+ * Only start tags change: everything else (th: attributes, inlined expressions, comments)
+ * is left byte for byte. Supported selectors are tag, {@code .class}, {@code #id}, their
+ * compounds and descendant chains ({@code .logo img}); pseudo-classes, child/sibling
+ * combinators, attribute selectors and {@code @media} blocks stay in the stylesheet only.
+ * The {@code <style>} blocks themselves are kept for clients that do read them.
+ */
+final class CssInliner {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STYLE_BLOCK = Pattern.compile("<style[^>]*>(.*?)</style\\s*>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPOUND = Pattern.compile("([a-zA-Z][a-zA-Z0-9-]*)?((?:[.#][a-zA-Z0-9_-]+)*)");
+    private static final Pattern SIMPLE_PART = Pattern.compile("[.#][a-zA-Z0-9_-]+");
+    private static final Pattern ATTR = Pattern.compile(
+            "([^\\s=/>]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+
+    private static final Set<String> VOID = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr");
+    private static final Set<String> RAW_TEXT = Set.of("style", "script", "title", "textarea");
+
+    private record Compound(String tag, String id, List<String> classes) {
+        boolean matches(Element e) {
+            if (tag != null && !tag.equals(e.tag())) return false;
+            if (id != null && !id.equals(e.id())) return false;
+            return e.classes().containsAll(classes);
+        }
+    }
+
+    private record Rule(List<Compound> chain, int specificity, int order, String declarations) { }
+
+    private record Element(String tag, String id, Set<String> classes) { }
+
+    private CssInliner() {
+    }
+
+    static String inline(String html) {
+        List<Rule> rules = parseRules(html);
+        if (rules.isEmpty()) return html;
+        rules.sort(Comparator.comparingInt(Rule::specificity).thenComparingInt(Rule::order));
+
+        StringBuilder out = new StringBuilder(html.length() + html.length() / 2);
+        Deque<Element> open = new ArrayDeque<>();
+        int i = 0, n = html.length();
+        while (i < n) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0) {
+                out.append(html, i, n);
+                break;
+            }
+            out.append(html, i, lt);
+
+            if (html.startsWith("<!--", lt)) {
+                i = copyThrough(html, lt, "-->", out);
+            } else if (html.startsWith("</", lt)) {
+                int gt = tagEnd(html, lt);
+                close(open, html.substring(lt + 2, gt).trim().toLowerCase(Locale.ROOT));
+                out.append(html, lt, gt + 1);
+                i = gt + 1;
+            } else if (lt + 1 < n && Character.isLetter(html.charAt(lt + 1))) {
+                int gt = tagEnd(html, lt);
+                String tagSrc = html.substring(lt, gt + 1);
+                Element e = element(tagSrc);
+                out.append(styled(tagSrc, e, open, rules));
+                i = gt + 1;
+                if (RAW_TEXT.contains(e.tag())) {
+                    i = copyThrough(html, i, "</" + e.tag(), out);
+                    open.push(e);
+                } else if (!VOID.contains(e.tag()) && !tagSrc.endsWith("/>")) {
+                    open.push(e);
+                }
+            } else {
+                // doctype, processing instruction or a stray '<'
+                int gt = html.indexOf('>', lt);
+                int end = gt < 0 ? n : gt + 1;
+                out.append(html, lt, end);
+                i = end;
+            }
+        }
+        return out.toString();
+    }
+
+    /* =========================
+       Stylesheet
+       ========================= */
+
+    private static List<Rule> parseRules(String html) {
+        List<Rule> rules = new ArrayList<>();
+        Matcher m = STYLE_BLOCK.matcher(html);
+        int order = 0;
+        while (m.find()) {
+            String css = COMMENT.matcher(m.group(1)).replaceAll("");
+            int i = 0;
+            while (i < css.length()) {
+                int open = css.indexOf('{', i);
+                if (open < 0) break;
+                String prelude = css.substring(i, open).trim();
+                int close = matchingBrace(css, open);
+                if (!prelude.startsWith("@")) {
+                    String decls = css.substring(open + 1, close).trim().replace('"', '\'');
+                    for (String sel : prelude.split(",")) {
+                        Rule r = rule(sel.trim(), order++, decls);
+                        if (r != null) rules.add(r);
+                    }
+                }
+                i = close + 1;
+            }
+        }
+        return rules;
+    }
+
+    private static Rule rule(String selector, int order, String declarations) {
+        if (selector.isEmpty() || declarations.isEmpty()) return null;
+        List<Compound> chain = new ArrayList<>();
+        int ids = 0, classes = 0, tags = 0;
+        for (String part : selector.split("\\s+")) {
+            Matcher m = COMPOUND.matcher(part);
+            if (!m.matches() || part.isEmpty()) return null;  // unsupported selector
+            String tag = m.group(1) != null ? m.group(1).toLowerCase(Locale.ROOT) : null;
+            String id = null;
+            List<String> cls = new ArrayList<>();
+            Matcher p = SIMPLE_PART.matcher(m.group(2));
+            while (p.find()) {
+                String s = p.group();
+                if (s.charAt(0) == '#') id = s.substring(1);
+                else cls.add(s.substring(1));
+            }
+            if (tag != null) tags++;
+            if (id != null) ids++;
+            classes += cls.size();
+            chain.add(new Compound(tag, id, cls));
+        }
+        return new Rule(chain, ids * 10_000 + classes * 100 + tags, order, declarations);
+    }
+
+    private static int matchingBrace(String css, int open) {
+        int depth = 0;
+        for (int i = open; i < css.length(); i++) {
+            char c = css.charAt(i);
+            if (c == '{') depth++;
+            else if (c == '}' && --depth == 0) return i;
+        }
+        return css.length() - 1;
+    }
+
+    /* =========================
+       Markup
+       ========================= */
+
+    private static String styled(String tagSrc, Element e, Deque<Element> ancestors, List<Rule> rules) {
+        Map<String, String> attrs = attributes(tagSrc);
+        if (attrs.containsKey("th:style") || attrs.containsKey("data-th-style")) return tagSrc;
+
+        Map<String, String> props = new LinkedHashMap<>();
+        for (Rule r : rules) {
+            if (matches(r.chain(), e, ancestors)) addDeclarations(props, r.declarations());
+        }
+        if (props.isEmpty()) return tagSrc;
+
+        String existing = attrs.get("style");
+        if (existing != null) addDeclarations(props, existing);  // inline style wins
+
+        StringBuilder style = new StringBuilder();
+        props.forEach((k, v) -> style.append(k).append(':').append(v).append(';'));
+
+        if (existing != null) {
+            Matcher m = Pattern.compile("(\\sstyle\\s*=\\s*)(\"[^\"]*\"|'[^']*')", Pattern.CASE_INSENSITIVE)
+                    .matcher(tagSrc);
+            if (m.find()) {
+                return tagSrc.substring(0, m.start()) + m.group(1) + '"' + style + '"' + tagSrc.substring(m.end());
+            }
+        }
+        int end = tagSrc.endsWith("/>") ? tagSrc.length() - 2 : tagSrc.length() - 1;
+        return tagSrc.substring(0, end).stripTrailing() + " style=\"" + style + '"' + tagSrc.substring(end);
+    }
+
+    private static boolean matches(List<Compound> chain, Element e, Deque<Element> ancestors) {
+        int last = chain.size() - 1;
+        if (!chain.get(last).matches(e)) return false;
+        int k = last - 1;
+        for (Iterator<Element> it = ancestors.iterator(); it.hasNext() && k >= 0; ) {  // nearest first
+            if (chain.get(k).matches(it.next())) k--;
+        }
+        return k < 0;
+    }
+
+    private static void addDeclarations(Map<String, String> props, String declarations) {
+        for (String d : declarations.split(";")) {
+            int colon = d.indexOf(':');
+            if (colon <= 0) continue;
+            String prop = d.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = d.substring(colon + 1).trim();
+            if (prop.isEmpty() || value.isEmpty()) continue;
+            props.remove(prop);  // keep the winning declaration last
+            props.put(prop, value.replace('"', '\''));
+        }
+    }
+
+    private static Element element(String tagSrc) {
+        int nameEnd = 1;
+        while (nameEnd < tagSrc.length() && !Character.isWhitespace(tagSrc.charAt(nameEnd))
+                && tagSrc.charAt(nameEnd) != '>' && tagSrc.charAt(nameEnd) != '/') nameEnd++;
+        String tag = tagSrc.substring(1, nameEnd).toLowerCase(Locale.ROOT);
+
+        Map<String, String> attrs = attributes(tagSrc);
+        Set<String> classes = new HashSet<>();
+        String cls = attrs.get("class");
+        if (cls != null) classes.addAll(Arrays.asList(cls.trim().split("\\s+")));
+        return new Element(tag, attrs.get("id"), classes);
+    }
+
+    private static Map<String, String> attributes(String tagSrc) {
+        Map<String, String> attrs = new HashMap<>();
+        int start = 1;
+        while (start < tagSrc.length() && !Character.isWhitespace(tagSrc.charAt(start))
+                && tagSrc.charAt(start) != '>') start++;
+        Matcher m = ATTR.matcher(tagSrc.substring(start, tagSrc.length() - 1));
+        while (m.find()) {
+            String value = m.group(2) != null ? m.group(2) : m.group(3) != null ? m.group(3) : m.group(4);
+            attrs.putIfAbsent(m.group(1).toLowerCase(Locale.ROOT), value != null ? value : "");
+        }
+        return attrs;
+    }
+
+    private static void close(Deque<Element> open, String tag) {
+        for (Element e : open) {
+            if (e.tag().equals(tag)) {
+                while (!open.isEmpty() && !open.pop().tag().equals(tag)) {
+                    // drop unclosed children
+                }
+                return;
+            }
+        }
+    }
+
+    /** Index of the '>' that ends the tag starting at {@code lt}, skipping quoted attribute values. */
+    private static int tagEnd(String html, int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return html.length() - 1;
+    }
+
+    /** Copies up to and including {@code end}, or up to a raw-text closing tag ({@code "</style"}). */
+    private static int copyThrough(String html, int from, String end, StringBuilder out) {
+        int idx = -1;
+        for (int i = from; i <= html.length() - end.length(); i++) {
+            if (html.regionMatches(true, i, end, 0, end.length())) {
+                idx = i;
+                break;
+            }
+        }
+        int stop = idx < 0 ? html.length() : idx + (end.startsWith("</") ? 0 : end.length());
+        out.append(html, from, stop);
+        return stop;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.User;
+import com.example.foodapp.repository.UserRepository;
+import com.example.foodapp.web.SessionUser;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The one place that turns the security principal into a user.
+ *
+ * The session's {@code USER} snapshot wins; without it the principal name (username or
+ * e-mail) is looked up through a small LRU cache with a TTL, so a request never costs a
+ * user query once the snapshot is known. Controllers that need the entity get a JPA
+ * reference by id, which only loads the row if a field other than the id is read.
+ * {@link UserService} evicts entries whenever it writes a user.
+ */
+@Service
+public class CurrentUserService {
+
+    /** Paths served as static files; no user is resolved for them. */
+    private static final List<String> STATIC_PREFIXES = List.of(
+            "/css/", "/js/", "/images/", "/icons/", "/uploads/", "/webjars/",
+            "/admin/css/", "/admin/js/", "/admin/images/", "/favicon");
+
+    private record Cached(SessionUser user, long expiresAt) { }
+
+    private final UserRepository repo;
+    private final long ttlMillis;
+    private final Map<String, Cached> byPrincipal;
+
+    public CurrentUserService(UserRepository repo,
+                              @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${app.user-cache.max-entries:10000}") int maxEntries) {
+        this.repo = repo;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.byPrincipal = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public static boolean isStaticPath(String path) {
+        if (path == null) return false;
+        for (String prefix : STATIC_PREFIXES) {
+            if (path.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The signed-in user's snapshot, or null for guests. Stores it in the session
+     * when it had to be resolved from the principal.
+     */
+    public SessionUser snapshot(HttpSession session) {
+        Object inSession = session != null ? session.getAttribute("USER") : null;
+        if (inSession instanceof SessionUser su) return su;
+
+        String principal = principalName();
+        if (principal == null) return null;
+
+        SessionUser su = lookup(principal);
+        if (su != null && session != null) session.setAttribute("USER", su);
+        return su;
+    }
+
+    public Long currentUserId(HttpSession session) {
+        SessionUser su = snapshot(session);
+        return su != null ? su.id() : null;
+    }
+
+    /** Lazy reference to the signed-in user (no query until a non-id field is read), or null. */
+    public User currentUser(HttpSession session) {
+        Long id = currentUserId(session);
+        return id != null ? repo.getReferenceById(id) : null;
+    }
+
+    /** Drops cached snapshots of this user (by id, username and e-mail). */
+    public void evict(User u) {
+        if (u == null) return;
+        synchronized (byPrincipal) {
+            if (u.getId() != null) {
+                byPrincipal.values().removeIf(c -> c.user() != null && u.getId().equals(c.user().id()));
+            }
+            if (u.getUsername() != null) byPrincipal.remove(key(u.getUsername()));
+            if (u.getEmail() != null) byPrincipal.remove(key(u.getEmail()));
+        }
+    }
+
+    public void evict(Long userId) {
+        if (userId == null) return;
+        synchronized (byPrincipal) {
+            byPrincipal.values().removeIf(c -> c.user() != null && userId.equals(c.user().id()));
+        }
+    }
+
+    private SessionUser lookup(String principal) {
+        String key = key(principal);
+        long now = System.currentTimeMillis();
+        Cached cached = byPrincipal.get(key);
+        if (cached != null && cached.expiresAt() > now) return cached.user();
+
+        // misses are cached too, so a principal without a user row (e.g. an admin) costs one query per TTL
+        SessionUser su = repo.findByUsernameIgnoreCaseOrEmailIgnoreCase(principal, principal)
+                .map(SessionUser::of)
+                .orElse(null);
+        byPrincipal.put(key, new Cached(su, now + ttlMillis));
+        return su;
+    }
+
+    private static String principalName() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) return null;
+
+        Object p = auth.getPrincipal();
+        if (p instanceof UserDetails u) return u.getUsername();
+        if (p instanceof OAuth2User o) {
+            Object email = o.getAttributes().get("email");
+            return email != null ? email.toString() : o.getName();
+        }
+        if (p instanceof String s && !"anonymousUser".equals(s)) return s;
+        return null;
+    }
+
+    private static String key(String principal) {
+        return principal.trim().toLowerCase(Locale.ROOT);
+    }
+}
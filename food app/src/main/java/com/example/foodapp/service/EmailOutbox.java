@@ -0,0 +1,383 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.OutboundEmail;
+import com.example.foodapp.repository.OutboundEmailRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable outbox for all outgoing mail.
+ *
+ * Callers only {@link #enqueue} a rendered message (one insert, inside their transaction if they
+ * have one), so checkout and webhook requests never wait on SMTP. The dispatcher claims due rows
+ * in batches and hands them to a small worker pool; each worker sends its share over a single
+ * SMTP connection ({@link JavaMailSender#send(MimeMessage...)}). Failed messages are retried with
+ * exponential backoff and parked as DEAD after the last attempt.
+ *
+ * Runs after commit and every {@code app.mail.outbox.poll-ms}; rows claimed by a node that died
+ * are put back after {@code app.mail.outbox.stale-minutes}.
+ *
+ * Newsletter mail (rows with a {@code campaignId}) is claimed through a token bucket per campaign,
+ * so it leaves at {@code app.newsletter.rate-per-second} however fast it was queued; transactional
+ * mail is never held back by it. The buckets are per node: with several nodes sending, the
+ * campaign rate is that many times the setting.
+ */
+@Service
+public class EmailOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private final OutboundEmailRepository repo;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate tx;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean again = new AtomicBoolean();
+    // both only touched by the coordinator thread
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    private long campaignWaitNanos;
+
+    @Value("${app.mail.from:no-reply@spicejar.example}")
+    private String defaultFrom;
+    @Value("${app.mail.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${app.mail.outbox.per-connection:20}")
+    private int perConnection;
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+    @Value("${app.mail.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+    @Value("${app.mail.outbox.stale-minutes:10}")
+    private long staleMinutes;
+    @Value("${app.newsletter.rate-per-second:10}")
+    private double campaignRate;
+
+    public EmailOutbox(OutboundEmailRepository repo,
+                       JavaMailSender mailSender,
+                       PlatformTransactionManager txManager,
+                       @Value("${app.mail.outbox.workers:4}") int workerCount) {
+        this.repo = repo;
+        this.mailSender = mailSender;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.coordinator = Executors.newSingleThreadExecutor(named("mail-outbox"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), named("mail-sender-"));
+    }
+
+    /* =========================
+       Enqueue
+       ========================= */
+
+    public OutboundEmail enqueue(String to, String subject, String html) {
+        return enqueue(new OutboundEmail(to, subject, html));
+    }
+
+    /** Stores the message; it is picked up once the caller's transaction (if any) commits. */
+    public OutboundEmail enqueue(OutboundEmail email) {
+        if (email.getToAddress() == null || email.getToAddress().isBlank()) {
+            throw new IllegalArgumentException("Email has no recipient");
+        }
+        OutboundEmail saved = repo.save(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+        return saved;
+    }
+
+    /* =========================
+       Dispatch
+       ========================= */
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:5000}")
+    public void poll() {
+        wake();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.stale-check-ms:60000}")
+    public void releaseStale() {
+        int n = tx.execute(s -> repo.releaseStale(LocalDateTime.now().minusMinutes(staleMinutes)));
+        if (n > 0) log.warn("Returned {} stale outbox rows to the queue", n);
+    }
+
+    /** Starts a drain unless one is running; a running drain is told to go round once more. */
+    void wake() {
+        again.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                coordinator.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);  // shutting down; rows stay PENDING
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (again.getAndSet(false)) {
+                List<Long> claimed;
+                while (!(claimed = claimBatch()).isEmpty()) {
+                    sendAll(claimed);
+                }
+                if (campaignWaitNanos > 0) {
+                    // campaign mail is due but over its rate: come back for the next burst
+                    TimeUnit.NANOSECONDS.sleep(Math.min(campaignWaitNanos, TimeUnit.SECONDS.toNanos(1)));
+                    again.set(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Outbox drain failed, will retry on next poll", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private List<Long> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        int max = Math.max(1, batchSize);
+        return tx.execute(s -> {
+            List<Long> ids = new ArrayList<>();
+            for (Long id : repo.dueIds(now, PageRequest.of(0, max))) {
+                if (repo.claim(id, now) == 1) ids.add(id);
+            }
+            campaignWaitNanos = claimCampaigns(now, max - ids.size(), ids);
+            return ids;
+        });
+    }
+
+    /**
+     * Adds due campaign mail to {@code ids}, as much as each campaign's bucket allows. Returns
+     * how long until a campaign that ran out of tokens can send a full burst again, or 0.
+     */
+    private long claimCampaigns(LocalDateTime now, int room, List<Long> ids) {
+        List<Long> due = repo.dueCampaigns(now);
+        buckets.keySet().retainAll(due);
+        long wait = 0;
+        for (Long campaign : due) {
+            if (room <= 0) break;
+            Bucket bucket = campaignRate > 0 ? buckets.computeIfAbsent(campaign, k -> new Bucket(campaignRate)) : null;
+            int allowed = bucket == null ? room : bucket.take(room);
+            int got = 0;
+            if (allowed > 0) {
+                for (Long id : repo.dueCampaignIds(campaign, now, PageRequest.of(0, allowed))) {
+                    if (repo.claim(id, now) == 1) {
+                        ids.add(id);
+                        got++;
+                    }
+                }
+            }
+            room -= got;
+            if (bucket != null) {
+                bucket.giveBack(allowed - got);  // rows another node claimed first
+                if (got == allowed && allowed < room + got) {  // the bucket, not the queue, was the limit
+                    long full = bucket.nanosUntilFull();
+                    wait = wait == 0 ? full : Math.min(wait, full);
+                }
+            }
+        }
+        return wait;
+    }
+
+    private void sendAll(List<Long> ids) {
+        List<Future<?>> running = new ArrayList<>();
+        int chunk = Math.max(1, perConnection);
+        for (int i = 0; i < ids.size(); i += chunk) {
+            List<Long> part = ids.subList(i, Math.min(ids.size(), i + chunk));
+            running.add(workers.submit(() -> sendOverOneConnection(part)));
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Outbox worker failed", e.getCause());
+            }
+        }
+    }
+
+    private void sendOverOneConnection(List<Long> ids) {
+        List<OutboundEmail> rows = repo.findAllById(ids);
+        Map<MimeMessage, OutboundEmail> byMessage = new LinkedHashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+
+        for (OutboundEmail row : rows) {
+            try {
+                byMessage.put(toMime(row), row);
+            } catch (Exception e) {
+                failures.put(row.getId(), "Bad message: " + e.getMessage());
+            }
+        }
+
+        if (!byMessage.isEmpty()) {
+            try {
+                mailSender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failed = e.getFailedMessages();
+                if (failed.isEmpty()) {
+                    byMessage.values().forEach(r -> failures.put(r.getId(), e.getMessage()));
+                } else {
+                    failed.forEach((msg, ex) -> {
+                        OutboundEmail r = byMessage.get(msg);
+                        if (r != null) failures.put(r.getId(), ex.getMessage());
+                    });
+                }
+            } catch (RuntimeException e) {
+                // connect/auth failure: nothing in this batch went out
+                byMessage.values().forEach(r -> failures.put(r.getId(), e.getMessage()));
+            }
+        }
+
+        tx.executeWithoutResult(s -> record(rows, failures));
+    }
+
+    private void record(List<OutboundEmail> rows, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboundEmail row : rows) {
+            row.setAttempts(row.getAttempts() + 1);
+            row.setClaimedAt(null);
+            String error = failures.get(row.getId());
+            if (error == null) {
+                row.setStatus(OutboundEmail.Status.SENT);
+                row.setSentAt(now);
+                row.setLastError(null);
+            } else if (row.getAttempts() >= maxAttempts) {
+                row.setStatus(OutboundEmail.Status.DEAD);
+                row.setLastError(truncate(error));
+                log.error("Email #{} to {} dead after {} attempts: {}",
+                        row.getId(), row.getToAddress(), row.getAttempts(), error);
+            } else {
+                row.setStatus(OutboundEmail.Status.PENDING);
+                row.setLastError(truncate(error));
+                row.setNextAttemptAt(now.plusSeconds(backoff(row.getAttempts())));
+            }
+        }
+        repo.saveAll(rows);
+    }
+
+    /** 30s, 1m, 2m, 4m ... capped at 6h. */
+    private long backoff(int attempts) {
+        long seconds = Math.max(1, backoffSeconds) << Math.min(attempts - 1, 20);
+        return Math.min(seconds, TimeUnit.HOURS.toSeconds(6));
+    }
+
+    private MimeMessage toMime(OutboundEmail row) throws Exception {
+        MimeMessage msg = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+                msg, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, StandardCharsets.UTF_8.name());
+        helper.setTo(row.getToAddress());
+        helper.setSubject(row.getSubject());
+        String from = row.getFromAddress() != null ? row.getFromAddress() : defaultFrom;
+        if (row.getFromName() != null) {
+            helper.setFrom(new InternetAddress(from, row.getFromName(), StandardCharsets.UTF_8.name()));
+        } else {
+            helper.setFrom(from);
+        }
+        if (row.getReplyTo() != null) helper.setReplyTo(row.getReplyTo());
+        helper.setText(row.getHtml(), true);
+        return msg;
+    }
+
+    public Map<String, Long> counts() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (OutboundEmail.Status s : OutboundEmail.Status.values()) out.put(s.name(), repo.countByStatus(s));
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        workers.shutdown();
+        try {
+            if (!coordinator.awaitTermination(10, TimeUnit.SECONDS)) coordinator.shutdownNow();
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) workers.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send budget for one campaign: {@code rate} tokens a second, holding at most a second's
+     * worth, so a large campaign goes out in bursts of about {@code rate} messages a second.
+     */
+    private static final class Bucket {
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        Bucket(double rate) {
+            this.rate = rate;
+            this.capacity = Math.max(1, rate);
+            this.tokens = capacity;
+        }
+
+        int take(int max) {
+            refill();
+            int n = (int) Math.min(max, Math.floor(tokens));
+            tokens -= n;
+            return n;
+        }
+
+        void giveBack(int n) {
+            tokens = Math.min(capacity, tokens + n);
+        }
+
+        long nanosUntilFull() {
+            refill();
+            return (long) Math.ceil((capacity - tokens) * 1e9 / rate);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+        }
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix.endsWith("-") ? prefix + n.incrementAndGet() : prefix);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
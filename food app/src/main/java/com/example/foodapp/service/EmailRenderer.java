@@ -0,0 +1,177 @@
+package com.example.foodapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresource.ClassPathTemplateResource;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Renders e-mail templates.
+ *
+ * Uses its own Thymeleaf engine (SpEL compiler on) whose resolver serves each template with
+ * its stylesheet already inlined ({@link CssInliner}); the inlined source is kept per template
+ * version (a checksum of the file), so it is redone only when the file changes. All mail
+ * templates are parsed at startup, so the first send after a deploy doesn't pay for it.
+ * Render time is recorded per template.
+ */
+@Service
+public class EmailRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailRenderer.class);
+
+    private static final String PREFIX = "templates/";
+    private static final String SUFFIX = ".html";
+
+    /** Mail templates that live outside templates/email/. */
+    private static final List<String> EXTRA_TEMPLATES = List.of(
+            "order_confirmation", "reset_password_email", "email-welcome", "contact_ticket");
+
+    private record Inlined(long version, String html) { }
+
+    private record Timings(LongAdder count, LongAdder nanos, LongAccumulator maxNanos, LongAdder failures) {
+        Timings() {
+            this(new LongAdder(), new LongAdder(), new LongAccumulator(Math::max, 0), new LongAdder());
+        }
+    }
+
+    private final SpringTemplateEngine engine = new SpringTemplateEngine();
+    private final Map<String, Inlined> inlined = new ConcurrentHashMap<>();
+    private final Map<String, Timings> timings = new ConcurrentHashMap<>();
+
+    public EmailRenderer(MessageSource messageSource,
+                         @Value("${spring.thymeleaf.cache:true}") boolean cache) {
+        InliningResolver resolver = new InliningResolver();
+        resolver.setPrefix(PREFIX);
+        resolver.setSuffix(SUFFIX);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(cache);
+
+        engine.setTemplateResolver(resolver);
+        engine.setEnableSpringELCompiler(true);
+        engine.setMessageSource(messageSource);
+    }
+
+    public String render(String template, Map<String, Object> model) {
+        Context ctx = new Context();
+        if (model != null) ctx.setVariables(model);
+
+        Timings t = timings.computeIfAbsent(template, k -> new Timings());
+        long start = System.nanoTime();
+        try {
+            return engine.process(template, ctx);
+        } catch (RuntimeException e) {
+            t.failures().increment();
+            throw e;
+        } finally {
+            long took = System.nanoTime() - start;
+            t.count().increment();
+            t.nanos().add(took);
+            t.maxNanos().accumulate(took);
+        }
+    }
+
+    /** Parses every mail template into the engine's cache before the first send. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long start = System.nanoTime();
+        int n = 0;
+        for (String template : templateNames()) {
+            try {
+                // parsing and caching happen before evaluation, so the empty model failing is fine
+                engine.process(template, new Context());
+            } catch (RuntimeException expected) {
+                log.trace("Warm-up render of {} stopped: {}", template, expected.getMessage());
+            }
+            if (inlined.containsKey(template)) n++;
+        }
+        log.info("Warmed {} mail templates in {} ms", n, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new TreeMap<>();
+        timings.forEach((template, t) -> {
+            long count = t.count().sum();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("renders", count);
+            row.put("failures", t.failures().sum());
+            row.put("avgMillis", count == 0 ? 0d : t.nanos().sum() / 1e6 / count);
+            row.put("maxMillis", t.maxNanos().get() / 1e6);
+            Inlined i = inlined.get(template);
+            if (i != null) row.put("version", Long.toHexString(i.version()));
+            out.put(template, row);
+        });
+        return out;
+    }
+
+    private List<String> templateNames() {
+        List<String> names = new ArrayList<>();
+        try {
+            for (Resource r : new PathMatchingResourcePatternResolver().getResources("classpath:" + PREFIX + "email/*" + SUFFIX)) {
+                String file = r.getFilename();
+                if (file != null) names.add("email/" + file.substring(0, file.length() - SUFFIX.length()));
+            }
+        } catch (IOException e) {
+            log.warn("Could not list mail templates: {}", e.getMessage());
+        }
+        names.addAll(EXTRA_TEMPLATES);
+        return names;
+    }
+
+    /** Loads the template from the classpath and serves it with its CSS inlined. */
+    private final class InliningResolver extends AbstractConfigurableTemplateResolver {
+
+        @Override
+        protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                            String template, String resourceName,
+                                                            String characterEncoding,
+                                                            Map<String, Object> templateResolutionAttributes) {
+            ClassPathResource file = new ClassPathResource(resourceName);
+            if (!file.exists()) return new ClassPathTemplateResource(resourceName, characterEncoding);  // reports it missing
+
+            String source;
+            try (InputStream in = file.getInputStream()) {
+                source = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read mail template " + resourceName, e);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(source.getBytes(StandardCharsets.UTF_8));
+            long version = crc.getValue();
+
+            Inlined cached = inlined.get(template);
+            if (cached == null || cached.version() != version) {
+                cached = new Inlined(version, CssInliner.inline(source));
+                inlined.put(template, cached);
+            }
+            return new StringTemplateResource(cached.html());
+        }
+    }
+}
@@ -7,14 +7,9 @@ import com.example.foodapp.model.Order;
 import com.example.foodapp.model.OrderItem;
 import com.example.foodapp.model.Payment;
 import com.example.foodapp.repository.OrderRepository;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -26,8 +21,8 @@ import java.util.*;
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailOutbox outbox;
+    private final EmailRenderer renderer;
     private final OrderRepository orderRepository;
 
     @Value("${app.base-url}")
@@ -44,45 +39,30 @@ public class EmailService {
         String orderUrl   = baseUrl + "orders/" + order.getId();
         String invoiceUrl = baseUrl + "orders/" + order.getId() + "/invoice.pdf";
 
-        Context ctx = new Context();
-        ctx.setVariable("order", order);
-        ctx.setVariable("subject", "Your order #" + order.getId() + " at The Spice Jar");
-        ctx.setVariable("preheader", "Thanks—your order is confirmed!");
-        ctx.setVariable("year", java.time.Year.now().getValue());
-        ctx.setVariable("orderUrl", orderUrl);
-        ctx.setVariable("invoiceUrl", invoiceUrl);
+        Map<String, Object> model = new HashMap<>();
+        model.put("order", order);
+        model.put("subject", "Your order #" + order.getId() + " at The Spice Jar");
+        model.put("preheader", "Thanks—your order is confirmed!");
+        model.put("year", java.time.Year.now().getValue());
+        model.put("orderUrl", orderUrl);
+        model.put("invoiceUrl", invoiceUrl);
 
-        String html = templateEngine.process("order_confirmation", ctx);
+        String html = renderer.render("order_confirmation", model);
         sendHtml(order.getEmail(), "The Spice Jar • Order #" + order.getId(), html);
     }
 
     /* ===================== GENERIC HTML SENDER ===================== */
 
+    // queued; the outbox sends it after the caller's transaction commits
     private void sendHtml(String to, String subject, String html) {
-        try {
-            MimeMessage msg = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(
-                    msg,
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    "UTF-8"
-            );
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setFrom("no-reply@spicejar.example"); // TODO: change to your verified sender
-            helper.setText(html, true);
-            mailSender.send(msg);
-        } catch (Exception e) {
-            throw new RuntimeException("Email send failed: " + e.getMessage(), e);
-        }
+        outbox.enqueue(to, subject, html);
     }
 
     /* ===================== RESET PASSWORD EMAIL ===================== */
 
     public void sendResetPasswordEmail(String toEmail, String resetUrl) {
-        Context ctx = new Context();
-        ctx.setVariable("resetUrl", resetUrl);
-        ctx.setVariable("subject", "Reset your Spice Jar password");
-        String html = templateEngine.process("reset_password_email", ctx);
+        String html = renderer.render("reset_password_email",
+                Map.of("resetUrl", resetUrl, "subject", "Reset your Spice Jar password"));
         sendHtml(toEmail, "Reset your password", html);
     }
 
@@ -90,9 +70,7 @@ public class EmailService {
 
     public void sendTemplate(String to, String subject, String template, Map<String, Object> model) {
         try {
-            Context ctx = new Context();
-            ctx.setVariables(model);
-            String html = templateEngine.process(template, ctx);
+            String html = renderer.render(template, model);
             sendHtml(to, subject, html);
         } catch (Exception e) {
             throw new RuntimeException("Email failed: " + e.getMessage(), e);
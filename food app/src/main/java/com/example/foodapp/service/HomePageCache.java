@@ -0,0 +1,193 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Coupon;
+import com.example.foodapp.model.Product;
+import com.example.foodapp.model.Review;
+import com.example.foodapp.repository.CouponRedemptionRepository;
+import com.example.foodapp.repository.CouponRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory data behind the home page, so a guest visit runs no queries.
+ *
+ * <ul>
+ *   <li>best sellers: the cached 90-day ranking, hydrated from the catalog snapshot;</li>
+ *   <li>active coupons: reloaded when an admin edits coupons, a new day starts, or
+ *       {@code app.home.coupons-ttl-ms} has passed;</li>
+ *   <li>redeemed coupon ids per user: loaded on first visit, kept current on redemption here,
+ *       and reloaded after {@code app.home.redeemed-ttl-ms};</li>
+ *   <li>latest approved reviews: reloaded after a review changes or {@code app.home.reviews-ttl-ms}.</li>
+ * </ul>
+ *
+ * Invalidation is local to this node, so the TTLs bound how long an edit or redemption made on
+ * another node can still show here (applying a coupon always re-checks redemption in
+ * CouponService). Each kind of entry has a version that invalidation bumps; a load only installs
+ * its result if the version is unchanged, so a load racing an invalidation can't put back what
+ * was just thrown away.
+ */
+@Component
+public class HomePageCache {
+
+    public static final int BEST_SELLERS = 4;
+    public static final int BEST_SELLER_DAYS = 90;
+    public static final int LATEST_REVIEWS = 3;
+
+    private record DayCoupons(LocalDate day, List<Coupon> coupons, long loadedAt) { }
+
+    private record Redeemed(Set<Long> couponIds, long loadedAt) { }
+
+    private record Reviews(List<Review> reviews, long loadedAt) { }
+
+    private final AnalyticsService analytics;
+    private final CouponRepository coupons;
+    private final CouponRedemptionRepository redemptions;
+    private final ReviewService reviews;
+
+    private volatile DayCoupons activeCoupons;
+    private volatile Reviews latestReviews;
+    private final Map<Long, Redeemed> redeemedByUser = new ConcurrentHashMap<>();
+
+    // bumped by every invalidation; guarded by "this" together with the fields they protect
+    private long couponsVersion;
+    private long reviewsVersion;
+    private long redemptionsVersion;
+
+    @Value("${app.home.redeemed-max-users:20000}")
+    private int maxUsers;
+
+    @Value("${app.home.coupons-ttl-ms:60000}")
+    private long couponsTtlMs;
+
+    @Value("${app.home.redeemed-ttl-ms:60000}")
+    private long redeemedTtlMs;
+
+    @Value("${app.home.reviews-ttl-ms:60000}")
+    private long reviewsTtlMs;
+
+    public HomePageCache(AnalyticsService analytics,
+                         CouponRepository coupons,
+                         CouponRedemptionRepository redemptions,
+                         ReviewService reviews) {
+        this.analytics = analytics;
+        this.coupons = coupons;
+        this.redemptions = redemptions;
+        this.reviews = reviews;
+    }
+
+    /* =========================
+       Best sellers
+       ========================= */
+
+    /** Ranked in memory by TopSellersService; no query. */
+    public List<Product> bestSellers() {
+        return analytics.topSellers(BEST_SELLERS, BEST_SELLER_DAYS);
+    }
+
+    /* =========================
+       Coupons
+       ========================= */
+
+    /** Active, date-valid coupons for today (ordered by start date, then code). */
+    public List<Coupon> activeCoupons() {
+        LocalDate today = LocalDate.now();
+        DayCoupons cached = activeCoupons;
+        if (cached != null && cached.day().equals(today) && fresh(cached.loadedAt(), couponsTtlMs)) {
+            return cached.coupons();
+        }
+
+        long version = versionOf(Kind.COUPONS);
+        List<Coupon> list = List.copyOf(coupons.findActiveCurrentlyValid(today));
+        synchronized (this) {
+            if (couponsVersion == version) activeCoupons = new DayCoupons(today, list, System.currentTimeMillis());
+        }
+        return list;
+    }
+
+    /** Active coupons this user has not redeemed yet; all of them for guests. */
+    public List<Coupon> availableCoupons(Long userId) {
+        List<Coupon> active = activeCoupons();
+        if (userId == null) return active;
+        Set<Long> used = redeemedCouponIds(userId);
+        if (used.isEmpty()) return active;
+        return active.stream()
+                .filter(c -> c.getId() != null && !used.contains(c.getId()))
+                .toList();
+    }
+
+    public Set<Long> redeemedCouponIds(Long userId) {
+        Redeemed cached = redeemedByUser.get(userId);
+        if (cached != null && fresh(cached.loadedAt(), redeemedTtlMs)) return cached.couponIds();
+        if (redeemedByUser.size() >= maxUsers) redeemedByUser.clear();
+
+        long version = versionOf(Kind.REDEMPTIONS);
+        Set<Long> used = Set.copyOf(redemptions.findCouponIdsUsedByUser(userId));
+        synchronized (this) {
+            if (redemptionsVersion == version) redeemedByUser.put(userId, new Redeemed(used, System.currentTimeMillis()));
+        }
+        return used;
+    }
+
+    public void couponRedeemed(Long userId, Long couponId) {
+        if (userId == null || couponId == null) return;
+        synchronized (this) {
+            redemptionsVersion++;
+            redeemedByUser.computeIfPresent(userId, (id, cur) -> {
+                Set<Long> next = new HashSet<>(cur.couponIds());
+                next.add(couponId);
+                return new Redeemed(Set.copyOf(next), cur.loadedAt());
+            });
+        }
+    }
+
+    /** Called after an admin creates, edits or deletes a coupon. */
+    public synchronized void couponsChanged() {
+        couponsVersion++;
+        activeCoupons = null;
+    }
+
+    /* =========================
+       Reviews
+       ========================= */
+
+    public List<Review> latestReviews() {
+        Reviews cached = latestReviews;
+        if (cached != null && fresh(cached.loadedAt(), reviewsTtlMs)) return cached.reviews();
+
+        long version = versionOf(Kind.REVIEWS);
+        List<Review> list = List.copyOf(reviews.latestApproved(LATEST_REVIEWS));
+        synchronized (this) {
+            if (reviewsVersion == version) latestReviews = new Reviews(list, System.currentTimeMillis());
+        }
+        return list;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReviewChanged(ReviewChangedEvent e) {
+        reviewsVersion++;
+        latestReviews = null;
+    }
+
+    /* =========================
+       Helpers
+       ========================= */
+
+    private enum Kind { COUPONS, REDEMPTIONS, REVIEWS }
+
+    private synchronized long versionOf(Kind kind) {
+        return switch (kind) {
+            case COUPONS -> couponsVersion;
+            case REDEMPTIONS -> redemptionsVersion;
+            case REVIEWS -> reviewsVersion;
+        };
+    }
+
+    private static boolean fresh(long loadedAt, long ttlMs) {
+        return System.currentTimeMillis() - loadedAt < ttlMs;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.foodapp.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Thrown by {@link StockReservationService#reserve} when any line is short; nothing is held. */
+public class InsufficientStockException extends IllegalStateException {
+
+    private final List<StockShortage> shortages;
+
+    public InsufficientStockException(List<StockShortage> shortages) {
+        super("Not enough stock for: " + shortages.stream().map(StockShortage::toString).collect(Collectors.joining(", ")));
+        this.shortages = List.copyOf(shortages);
+    }
+
+    public List<StockShortage> getShortages() {
+        return shortages;
+    }
+}
@@ -2,17 +2,13 @@ package com.example.foodapp.service;
 
 import com.example.foodapp.model.Order;
 import com.example.foodapp.model.OrderItem;
-import com.example.foodapp.model.Product;
-import com.example.foodapp.model.ProductVariant;
 import com.example.foodapp.repository.ProductRepository;
 import com.example.foodapp.repository.ProductVariantRepository;
 import com.example.foodapp.util.CartItem;
-import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 public class InventoryService {
@@ -21,10 +17,17 @@ public class InventoryService {
 
     private final ProductRepository productRepo;
     private final ProductVariantRepository variantRepo;
+    private final ApplicationEventPublisher events;
+    private final StockCounters counters;
 
-    public InventoryService(ProductRepository productRepo, ProductVariantRepository variantRepo) {
+    public InventoryService(ProductRepository productRepo,
+                            ProductVariantRepository variantRepo,
+                            ApplicationEventPublisher events,
+                            StockCounters counters) {
         this.productRepo = productRepo;
         this.variantRepo = variantRepo;
+        this.events = events;
+        this.counters = counters;
     }
 
     /* =========================
@@ -33,55 +36,49 @@ public class InventoryService {
 
     /** Returns current stock for a given productId/variantId combo. Variant wins if present. */
     public int getCurrentStock(Long productId, Long variantId) {
-        if (variantId != null) {
-            Optional<ProductVariant> v = variantRepo.findById(variantId);
-            return v.map(x -> safe(x.getStock())).orElse(0);
-        }
-        if (productId != null) {
-            Optional<Product> p = productRepo.findById(productId);
-            return p.map(x -> safe(x.getStock())).orElse(0);
-        }
-        return 0;
+        if (productId == null && variantId == null) return 0;
+        return counters.onHand(productId, variantId);
     }
 
-    /** Batch: productId -> stock (base product only). */
+    /** Batch: productId -> stock (base product only), from the in-memory counters. */
     public Map<Long, Integer> getStocksForProductIds(Collection<Long> productIds) {
         if (productIds == null || productIds.isEmpty()) return Collections.emptyMap();
-        List<Product> products = productRepo.findAllById(productIds);
-        return products.stream().collect(Collectors.toMap(Product::getId, p -> safe(p.getStock())));
+        Map<Long, Integer> out = new HashMap<>();
+        for (Long id : productIds) {
+            if (id != null) out.put(id, counters.onHand(id, null));
+        }
+        return out;
     }
 
-    /** Batch for cart: for each item use variant if present else product. Keyed by productId. */
-    // Overload for CartItem
-    // For CartItem list – product-level stock only
-    public Map<Long, Integer> getStocksForCartItems(Collection<CartItem> items) {
-        if (items == null || items.isEmpty()) return java.util.Collections.emptyMap();
-
-        // collect product IDs from the cart
-        Set<Long> productIds = items.stream()
-                .map(CartItem::getProductId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        // fetch all products
-        Map<Long, Product> productMap = productRepo.findAllById(productIds)
-                .stream()
-                .collect(Collectors.toMap(Product::getId, Function.identity()));
-
-        // build productId -> stock map
-        Map<Long, Integer> out = new HashMap<>();
-        for (CartItem it : items) {
-            Long pid = it.getProductId();
-            if (pid != null) {
-                Product p = productMap.get(pid);
-                int stock = (p == null || p.getStock() == null) ? 0 : p.getStock();
-                out.put(pid, stock);
-            }
+    /** Batch: (productId, variantId) -> stock, variant-level where the SKU has one. No queries. */
+    public Map<StockKey, Integer> getStocks(Collection<StockKey> skus) {
+        if (skus == null || skus.isEmpty()) return Collections.emptyMap();
+        Map<StockKey, Integer> out = new HashMap<>();
+        for (StockKey sku : skus) {
+            if (sku != null) out.put(sku, counters.onHand(sku.productId(), sku.variantId()));
         }
         return out;
     }
 
+    /** Batch for cart lines, keyed by (productId, variantId); gift cards are skipped. */
+    public Map<StockKey, Integer> getStocksForCartItems(Collection<CartItem> items) {
+        return getStocks(quantitiesOfCart(items, new HashMap<>()).keySet());
+    }
 
+    /** Stocked quantity per SKU for cart lines (gift cards skipped); fills {@code names}. */
+    public static Map<StockKey, Integer> quantitiesOfCart(Collection<CartItem> items, Map<StockKey, String> names) {
+        Map<StockKey, Integer> qtyBySku = new TreeMap<>();
+        if (items == null) return qtyBySku;
+        for (CartItem it : items) {
+            if (it.getType() == CartItem.Type.GIFT_CARD) continue;
+            if (it.getQty() <= 0 || it.getProductId() == null || it.getProductId() <= 0) continue;
+
+            StockKey sku = StockKey.of(it.getProductId(), it.getVariantId());
+            qtyBySku.merge(sku, it.getQty(), Integer::sum);
+            names.putIfAbsent(sku, it.getName());
+        }
+        return qtyBySku;
+    }
 
     /* =========================
        Labels & CSS (Amazon-style)
@@ -115,31 +112,52 @@ public class InventoryService {
     }
 
     /* =========================
-       Order application (decrement)
+       Order decrement (driven by StockReservationService.commit)
        ========================= */
 
-    /** Decrement stock for each item in the order (variant preferred). */
-    @Transactional
-    public void applyOrder(Order order) {
-        if (order == null || order.getItems() == null) return;
-
+    /** Stocked quantity per SKU for an order, in lock order; fills {@code names} for shortage messages. */
+    static Map<StockKey, Integer> quantitiesOf(Order order, Map<StockKey, String> names) {
+        Map<StockKey, Integer> qtyBySku = new TreeMap<>();
+        if (order == null || order.getItems() == null) return qtyBySku;
         for (OrderItem it : order.getItems()) {
             int qty = Math.max(0, it.getQuantity() == null ? 0 : it.getQuantity());
+            // gift cards use negative product ids and carry no stock
+            if (qty == 0 || it.getProductId() == null || it.getProductId() <= 0) continue;
+
+            StockKey sku = StockKey.of(it.getProductId(), it.getVariantId());
+            qtyBySku.merge(sku, qty, Integer::sum);
+            names.putIfAbsent(sku, it.getProductName());
+        }
+        return qtyBySku;
+    }
 
-            if (it.getVariantId() != null) {
-                variantRepo.findById(it.getVariantId()).ifPresent(v -> {
-                    int newQty = Math.max(0, safe(v.getStock()) - qty);
-                    v.setStock(newQty);
-                    variantRepo.save(v);
-                });
-            } else if (it.getProductId() != null) {
-                productRepo.findById(it.getProductId()).ifPresent(p -> {
-                    int newQty = Math.max(0, safe(p.getStock()) - qty);
-                    p.setStock(newQty);
-                    productRepo.save(p);
-                });
+    /**
+     * Conditional decrement for each SKU ({@code stock = stock - q where stock >= q}, variant
+     * preferred, in a stable order so concurrent checkouts can't oversell or deadlock); returns
+     * the SKUs that were short (and left untouched). Callers decide whether a shortage rolls
+     * everything back. Must run inside a transaction.
+     */
+    List<StockShortage> takeStock(Map<StockKey, Integer> qtyBySku, Map<StockKey, String> names) {
+        List<StockShortage> shortages = new ArrayList<>();
+        Map<StockKey, Integer> taken = new TreeMap<>();
+        for (Map.Entry<StockKey, Integer> e : qtyBySku.entrySet()) {
+            StockKey sku = e.getKey();
+            int qty = e.getValue();
+            int updated = sku.variantId() != null
+                    ? variantRepo.decrementIfAvailable(sku.variantId(), qty)
+                    : productRepo.decrementIfAvailable(sku.productId(), qty);
+            if (updated == 0) {
+                Integer available = sku.variantId() != null
+                        ? variantRepo.stockOf(sku.variantId())
+                        : productRepo.stockOf(sku.productId());
+                shortages.add(new StockShortage(sku, names.get(sku), qty, safe(available)));
+            } else {
+                taken.put(sku, qty);
             }
         }
+        // counters follow only if this transaction commits
+        if (!taken.isEmpty()) events.publishEvent(new StockTakenEvent(taken));
+        return shortages;
     }
 
     /* =========================
@@ -0,0 +1,113 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.SalesBucket;
+import com.example.foodapp.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the invoices of all paid (or refunded) orders placed in a date range as one ZIP.
+ *
+ * Invoices come from {@link InvoiceStore}, so stored PDFs are copied from disk and missing ones
+ * are rendered and kept for next time. At most {@code app.invoices.export-parallelism} invoices
+ * are in flight; entries are written in order as they complete and each is streamed from its
+ * file, so memory stays flat whatever the range. Orders whose invoice fails are listed in an
+ * {@code errors.txt} entry instead of aborting the archive.
+ */
+@Service
+public class InvoiceExport {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceExport.class);
+
+    private record Pending(Long orderId, String name, CompletableFuture<InvoiceStore.StoredInvoice> invoice) { }
+
+    private final OrderRepository orders;
+    private final InvoiceStore invoices;
+
+    @Value("${app.invoices.export-parallelism:4}")
+    private int parallelism;
+
+    public InvoiceExport(OrderRepository orders, InvoiceStore invoices) {
+        this.orders = orders;
+        this.invoices = invoices;
+    }
+
+    /** Orders placed from {@code from} through {@code to}, both inclusive. */
+    public void writeZip(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        Set<String> statuses = new HashSet<>(SalesBucket.PAID.statuses());
+        statuses.addAll(SalesBucket.REFUNDED.statuses());
+        List<Object[]> keys = orders.invoiceKeysBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), statuses);
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED);  // PDFs are compressed already
+        List<String> errors = new ArrayList<>();
+        Deque<Pending> window = new ArrayDeque<>();
+        int max = Math.max(1, parallelism);
+
+        for (Object[] k : keys) {
+            Long id = ((Number) k[0]).longValue();
+            window.add(new Pending(id, entryName(id, (String) k[1]), invoices.getAsync(id)));
+            if (window.size() >= max) write(zip, window.poll(), errors);
+        }
+        while (!window.isEmpty()) write(zip, window.poll(), errors);
+
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("errors.txt"));
+            zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        log.info("Invoice export {}..{}: {} invoices, {} failed", from, to, keys.size() - errors.size(), errors.size());
+    }
+
+    private void write(ZipOutputStream zip, Pending p, List<String> errors) throws IOException {
+        InvoiceStore.StoredInvoice stored;
+        try {
+            stored = p.invoice().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Invoice for order #{} left out of export: {}", p.orderId(), cause.getMessage());
+            errors.add("order #" + p.orderId() + ": " + cause.getMessage());
+            return;
+        }
+        // opened before the entry starts: a newer revision may have replaced the file meanwhile,
+        // and once open it reads to the end even if the file is deleted (on POSIX)
+        InputStream in;
+        try {
+            in = Files.newInputStream(stored.file());
+        } catch (IOException e) {
+            log.warn("Invoice for order #{} left out of export: {}", p.orderId(), e.toString());
+            errors.add("order #" + p.orderId() + ": " + e);
+            return;
+        }
+        try (in) {
+            ZipEntry entry = new ZipEntry(p.name());
+            entry.setTime(stored.lastModified());
+            zip.putNextEntry(entry);
+            in.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    /** {@code invoice-<id>-<confirmation>.pdf}; the id keeps names unique even if confirmations collide. */
+    private static String entryName(Long id, String confirmation) {
+        if (confirmation == null || confirmation.isBlank()) return "invoice-" + id + ".pdf";
+        return "invoice-" + id + "-" + confirmation.replaceAll("[^A-Za-z0-9._-]", "_") + ".pdf";
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Turns an order into its invoice: {@code templates/invoice.html} through Thymeleaf, then
+ * {@link PdfRenderer}. {@link #html} reads the order (lazy items included), so call it inside a
+ * session; {@link #pdf} is pure CPU and can run anywhere.
+ */
+@Service
+public class InvoiceRenderer {
+
+    static final String TEMPLATE = "invoice";
+
+    private final TemplateEngine templateEngine;
+    private final PdfRenderer pdfRenderer;
+    private final String templateVersion;
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+
+    public InvoiceRenderer(TemplateEngine templateEngine, PdfRenderer pdfRenderer) {
+        this.templateEngine = templateEngine;
+        this.pdfRenderer = pdfRenderer;
+        this.templateVersion = checksum("templates/" + TEMPLATE + ".html");
+    }
+
+    /** Changes whenever invoice.html does; stored PDFs from another version are stale. */
+    public String templateVersion() {
+        return templateVersion;
+    }
+
+    public String html(Order order) {
+        Context ctx = new Context();
+        ctx.setVariable("order", order);
+        ctx.setVariable("baseUrl", baseUrl); // if you use it in HTML for absolute urls
+        return templateEngine.process(TEMPLATE, ctx);
+    }
+
+    public byte[] pdf(String html) {
+        return pdfRenderer.render(html);
+    }
+
+    private static String checksum(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            CRC32 crc = new CRC32();
+            crc.update(StreamUtils.copyToByteArray(in));
+            return Long.toHexString(crc.getValue());
+        } catch (IOException e) {
+            return "0";
+        }
+    }
+}
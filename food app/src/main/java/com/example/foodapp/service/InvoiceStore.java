@@ -0,0 +1,262 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+import com.example.foodapp.model.OrderItem;
+import com.example.foodapp.model.SalesBucket;
+import com.example.foodapp.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rendered invoice PDFs on disk, one file per order, order revision and invoice template version.
+ *
+ * Paid orders rarely change, so their invoice is rendered once, in the background right after
+ * the order is paid, and every download after that streams the file. The order's revision
+ * (status, refund total and refunded lines, see {@link #revision}) is part of the file name
+ * and ETag, so a refund made on any node makes the stored file stale for every node: the next
+ * lookup misses and renders again. A new invoice.html version does the same. Concurrent
+ * requests for an invoice that is still being rendered wait for that one render instead of
+ * starting their own.
+ */
+@Service
+public class InvoiceStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceStore.class);
+
+    /** A stored invoice; {@code etag} changes with the order revision, template version and render. */
+    public record StoredInvoice(Path file, long size, long lastModified, String etag) { }
+
+    private final OrderRepository orders;
+    private final InvoiceRenderer renderer;
+    private final TransactionTemplate readTx;
+    private final Path dir;
+    private final ThreadPoolExecutor executor;
+    private final Map<Long, CompletableFuture<StoredInvoice>> inFlight = new ConcurrentHashMap<>();
+
+    public InvoiceStore(OrderRepository orders,
+                        InvoiceRenderer renderer,
+                        PlatformTransactionManager txManager,
+                        @Value("${app.invoices.dir:invoices}") String dir,
+                        @Value("${app.invoices.workers:2}") int workers,
+                        @Value("${app.invoices.queue:500}") int queue) {
+        this.orders = orders;
+        this.renderer = renderer;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.dir = Paths.get(dir);
+
+        AtomicInteger n = new AtomicInteger();
+        int threads = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queue)),
+                r -> {
+                    Thread t = new Thread(r, "invoice-render-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Invoices are kept only once the order is paid (or refunded); before that it can still change. */
+    public static boolean isFinal(Order o) {
+        return isFinal(o.getStatus());
+    }
+
+    private static boolean isFinal(String status) {
+        SalesBucket b = SalesBucket.of(status);
+        return b == SalesBucket.PAID || b == SalesBucket.REFUNDED;
+    }
+
+    /**
+     * Everything on the invoice that can still change once the order is paid, as a short
+     * token. Both sides of the comparison (the stored file name and the database) are built
+     * with this, so the scale of {@code refundTotal} doesn't matter.
+     */
+    static String revision(String status, BigDecimal refundTotal, long refundedLines) {
+        String refunded = refundTotal == null ? "0" : refundTotal.stripTrailingZeros().toPlainString();
+        return Integer.toHexString((status + "|" + refunded + "|" + refundedLines).hashCode());
+    }
+
+    private static String revision(Order o) {
+        long refundedLines = o.getItems() == null ? 0 : o.getItems().stream().filter(OrderItem::isRefunded).count();
+        return revision(o.getStatus(), o.getRefundTotal(), refundedLines);
+    }
+
+    /** The stored invoice for a paid order, rendering it now if it isn't on disk yet. */
+    public StoredInvoice get(Long orderId) {
+        try {
+            return getAsync(orderId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Like {@link #get}, without waiting; renders inline when the queue is full. */
+    public CompletableFuture<StoredInvoice> getAsync(Long orderId) {
+        StoredInvoice stored = stored(orderId);
+        if (stored != null) return CompletableFuture.completedFuture(stored);
+        try {
+            return render(orderId, false);
+        } catch (RejectedExecutionException full) {
+            try {
+                return CompletableFuture.completedFuture(write(orderId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    /* =========================
+       Pre-generation
+       ========================= */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent e) {
+        SalesBucket from = e.fromStatus() == null ? null : SalesBucket.of(e.fromStatus());
+        SalesBucket to = SalesBucket.of(e.toStatus());
+        if (to == SalesBucket.PAID && from != SalesBucket.PAID) {
+            prerender(e.orderId(), false);
+        } else if (to == SalesBucket.REFUNDED && from != SalesBucket.REFUNDED) {
+            prerender(e.orderId(), true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderRefunded(OrderRefundedEvent e) {
+        prerender(e.orderId(), true);
+    }
+
+    private void prerender(Long orderId, boolean replace) {
+        try {
+            // nobody waits on a pre-render, so this is the only place its failure can surface
+            render(orderId, replace).whenComplete((r, ex) -> {
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    log.warn("Pre-rendering invoice for order #{} failed; it will render on first download: {}",
+                            orderId, cause.toString());
+                }
+            });
+        } catch (RejectedExecutionException full) {
+            // a download renders it on demand instead
+            log.warn("Invoice queue full, order #{} will render on first download", orderId);
+        }
+    }
+
+    /* =========================
+       Rendering
+       ========================= */
+
+    private CompletableFuture<StoredInvoice> render(Long orderId, boolean replace) {
+        CompletableFuture<StoredInvoice> mine = new CompletableFuture<>();
+        CompletableFuture<StoredInvoice> running = inFlight.putIfAbsent(orderId, mine);
+        if (running != null) {
+            // a refund while an older render is running: chain a fresh one after it
+            return replace ? running.handle((r, ex) -> null).thenCompose(x -> render(orderId, true)) : running;
+        }
+        try {
+            executor.execute(() -> {
+                StoredInvoice result = null;
+                Throwable error = null;
+                try {
+                    result = replace ? null : stored(orderId);
+                    if (result == null) result = write(orderId);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                // leave the map first, so anything chained on completion starts a new render
+                inFlight.remove(orderId, mine);
+                if (error != null) mine.completeExceptionally(error);
+                else mine.complete(result);
+            });
+        } catch (RejectedExecutionException full) {
+            inFlight.remove(orderId, mine);
+            throw full;
+        }
+        return mine;
+    }
+
+    private record Snapshot(String revision, String html) { }
+
+    private StoredInvoice write(Long orderId) {
+        Snapshot snap = readTx.execute(s -> {
+            Order o = orders.findById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+            if (!isFinal(o)) throw new IllegalStateException("Order #" + orderId + " is not paid");
+            // revision and HTML come from the same read, so the name always matches the content
+            return new Snapshot(revision(o), renderer.html(o));
+        });
+        byte[] pdf = renderer.pdf(snap.html());
+
+        try {
+            Files.createDirectories(dir);
+            Path target = file(orderId, snap.revision());
+            Path tmp = Files.createTempFile(dir, "invoice-" + orderId + "-", ".tmp");
+            Files.write(tmp, pdf);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteOtherVersions(orderId, target);
+            log.debug("Stored invoice for order #{} rev {} ({} bytes)", orderId, snap.revision(), pdf.length);
+            return describe(orderId, snap.revision(), target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store invoice for order #" + orderId, e);
+        }
+    }
+
+    /** The file for the order as it is in the database now; null if there is none (or it's no longer final). */
+    private StoredInvoice stored(Long orderId) {
+        List<Object[]> rows = orders.invoiceRevision(orderId);
+        if (rows.isEmpty()) return null;
+        Object[] r = rows.get(0);
+        String status = (String) r[0];
+        if (!isFinal(status)) return null;
+        String revision = revision(status, (BigDecimal) r[1], ((Number) r[2]).longValue());
+        Path f = file(orderId, revision);
+        return Files.isRegularFile(f) ? describe(orderId, revision, f) : null;
+    }
+
+    private StoredInvoice describe(Long orderId, String revision, Path f) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(f);
+            long millis = modified.toMillis();
+            String etag = "\"inv-" + orderId + "-" + revision + "-" + renderer.templateVersion()
+                    + "-" + Long.toHexString(millis) + "\"";
+            return new StoredInvoice(f, Files.size(f), millis, etag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(Long orderId, String revision) {
+        return dir.resolve("invoice-" + orderId + "-" + revision + "-" + renderer.templateVersion() + ".pdf");
+    }
+
+    private void deleteOtherVersions(Long orderId, Path current) throws IOException {
+        String keep = current.getFileName().toString();
+        try (DirectoryStream<Path> old = Files.newDirectoryStream(dir, "invoice-" + orderId + "-*.pdf")) {
+            for (Path p : old) {
+                if (!p.getFileName().toString().equals(keep)) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -36,11 +36,7 @@ public class LoginSuccessHandler implements AuthenticationSuccessHandler {
 
         // 2) Put lean object in HTTP session for your controllers/templates
         HttpSession session = request.getSession(true);
-        session.setAttribute("USER", new SessionUser(
-                u.getId(), u.getFirstName(), u.getLastName(), u.getEmail()
-        ));
-
-        request.getSession(true).setAttribute("USER", userService.getCurrentUser(session));
+        session.setAttribute("USER", SessionUser.of(u));
 
         userService.touchLastLogin(u.getId());
 
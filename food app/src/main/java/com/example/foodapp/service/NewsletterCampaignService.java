@@ -0,0 +1,158 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.NewsletterCampaign;
+import com.example.foodapp.model.OutboundEmail;
+import com.example.foodapp.model.Subscriber;
+import com.example.foodapp.repository.NewsletterCampaignRepository;
+import com.example.foodapp.repository.SubscriberRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Newsletter fan-out.
+ *
+ * The template is rendered once per campaign with {@link #UNSUB_TOKEN} in place of the
+ * unsubscribe link; each recipient only gets a string substitution. Subscribers are read in
+ * keyset pages, and each page is queued into the {@link EmailOutbox} in the transaction that
+ * advances the campaign cursor, so a crash resumes after the last queued page instead of
+ * starting over. Queued rows carry the campaign id, and the outbox sends them at
+ * {@code app.newsletter.rate-per-second} (see {@link EmailOutbox}), so queueing itself isn't paced.
+ */
+@Service
+public class NewsletterCampaignService {
+
+    private static final Logger log = LoggerFactory.getLogger(NewsletterCampaignService.class);
+
+    public static final String UNSUB_TOKEN = "{{unsubLink}}";
+
+    private final NewsletterCampaignRepository campaigns;
+    private final SubscriberRepository subs;
+    private final EmailOutbox outbox;
+    private final EmailRenderer renderer;
+    private final TransactionTemplate tx;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "newsletter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${app.base-url:http://localhost:8080}")
+    private String baseUrl;
+    @Value("${app.newsletter.page-size:200}")
+    private int pageSize;
+
+    public NewsletterCampaignService(NewsletterCampaignRepository campaigns,
+                                     SubscriberRepository subs,
+                                     EmailOutbox outbox,
+                                     EmailRenderer renderer,
+                                     PlatformTransactionManager txManager) {
+        this.campaigns = campaigns;
+        this.subs = subs;
+        this.outbox = outbox;
+        this.renderer = renderer;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Renders and starts the campaign in the background. A key that already exists is
+     * resumed if it is still running and ignored if it finished.
+     */
+    public void start(String key, String subject, String template, Map<String, Object> model) {
+        NewsletterCampaign c = campaigns.findByCampaignKey(key).orElse(null);
+        if (c == null) {
+            Map<String, Object> vars = new HashMap<>(model);
+            vars.put("unsubLink", UNSUB_TOKEN);
+
+            c = new NewsletterCampaign();
+            c.setCampaignKey(key);
+            c.setSubject(subject);
+            c.setHtml(renderer.render(template, vars));
+            c = campaigns.save(c);
+        }
+        if (c.getStatus() == NewsletterCampaign.Status.DONE) {
+            log.info("Campaign {} already sent, skipping", key);
+            return;
+        }
+        Long id = c.getId();
+        runner.execute(() -> run(id));
+    }
+
+    /** Picks up campaigns interrupted by a shutdown or crash. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        for (NewsletterCampaign c : campaigns.findByStatus(NewsletterCampaign.Status.RUNNING)) {
+            log.info("Resuming campaign {} after subscriber #{}", c.getCampaignKey(), c.getLastSubscriberId());
+            Long id = c.getId();
+            runner.execute(() -> run(id));
+        }
+    }
+
+    private void run(Long campaignId) {
+        NewsletterCampaign c = campaigns.findById(campaignId).orElse(null);
+        if (c == null || c.getStatus() == NewsletterCampaign.Status.DONE) return;
+
+        String unsubBase = stripSlash(baseUrl) + "/newsletter/unsubscribe?token=";
+        int queued = 0;
+        try {
+            while (true) {
+                Integer n = tx.execute(s -> queuePage(c, unsubBase));
+                if (n == null || n < 0) return;   // another node owns this campaign now
+                if (n == 0) break;
+                queued += n;
+            }
+            tx.executeWithoutResult(s -> campaigns.findById(campaignId).ifPresent(done -> {
+                done.setStatus(NewsletterCampaign.Status.DONE);
+                done.setFinishedAt(LocalDateTime.now());
+            }));
+            log.info("Campaign {} queued {} emails", c.getCampaignKey(), queued);
+        } catch (RuntimeException e) {
+            log.warn("Campaign {} stopped after {} emails, will resume on restart", c.getCampaignKey(), queued, e);
+        }
+    }
+
+    /** Queues the next page and advances the cursor; 0 when done, -1 if the cursor moved under us. */
+    private int queuePage(NewsletterCampaign c, String unsubBase) {
+        long from = campaigns.findById(c.getId()).map(NewsletterCampaign::getLastSubscriberId).orElse(Long.MAX_VALUE);
+        List<Subscriber> page = subs.findByStatusAndIdGreaterThanOrderByIdAsc(
+                Subscriber.Status.ACTIVE, from, PageRequest.of(0, Math.max(1, pageSize)));
+        if (page.isEmpty()) return 0;
+
+        long to = page.get(page.size() - 1).getId();
+        if (campaigns.advance(c.getId(), from, to, page.size()) == 0) return -1;
+
+        for (Subscriber s : page) {
+            OutboundEmail mail = new OutboundEmail(s.getEmail(), c.getSubject(),
+                    c.getHtml().replace(UNSUB_TOKEN, unsubBase + s.getUnsubToken()));
+            mail.setCampaignId(c.getId());
+            outbox.enqueue(mail);
+        }
+        subs.markSent(page.stream().map(Subscriber::getId).toList(), LocalDateTime.now());
+        return page.size();
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();  // the cursor is committed per page, so nothing is lost
+    }
+}
@@ -53,7 +53,7 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
 //        }
 //
 //        // Put lean session object for controllers/Thymeleaf
-//        request.getSession(true).setAttribute("USER", user);
+//        request.getSession(true).setAttribute("USER", SessionUser.of(user));
 //
 //        // Touch last login
 //        userService.touchLastLogin(user.getId());
@@ -132,7 +132,7 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
         userService.touchLastLogin(user.getId());
 
         // Put a very small DTO in HTTP session for Thymeleaf nav, etc.
-        request.getSession(true).setAttribute("USER", user);
+        request.getSession(true).setAttribute("USER", SessionUser.of(user));
 
         // Done
         response.sendRedirect("/");
@@ -0,0 +1,38 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * One keyset page of orders. {@code nextCursor} is null on the last page and otherwise
+ * encodes the (createdAt, id) of the last row as "createdAt_id".
+ */
+public record OrderPage(List<Order> orders, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    static String cursorOf(Order last) {
+        if (last == null || last.getCreatedAt() == null || last.getId() == null) return null;
+        return last.getCreatedAt() + "_" + last.getId();
+    }
+
+    /** Parses a cursor; returns null for blank or malformed input (i.e. start from the first page). */
+    static Cursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int sep = cursor.lastIndexOf('_');
+        if (sep <= 0) return null;
+        try {
+            return new Cursor(LocalDateTime.parse(cursor.substring(0, sep)),
+                    Long.valueOf(cursor.substring(sep + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    record Cursor(LocalDateTime createdAt, Long id) {}
+}
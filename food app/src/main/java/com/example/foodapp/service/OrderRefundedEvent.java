@@ -0,0 +1,21 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Published by {@link PaymentService} once a refund against the order has gone through.
+ * {@code unitsByProduct} is what the order still sells after the refunded lines are taken out.
+ */
+public record OrderRefundedEvent(Long orderId,
+                                 LocalDateTime placedAt,
+                                 String status,
+                                 Map<Long, Integer> unitsByProduct) {
+
+    public static OrderRefundedEvent of(Order o) {
+        return new OrderRefundedEvent(o.getId(), o.getCreatedAt(), o.getStatus(),
+                OrderStatusChangedEvent.unitsSold(o));
+    }
+}
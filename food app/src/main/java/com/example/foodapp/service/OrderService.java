@@ -2,20 +2,23 @@ package com.example.foodapp.service;
 
 import com.example.foodapp.model.Order;
 import com.example.foodapp.repository.OrderRepository;
+import com.example.foodapp.repository.OrderSpecs;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -25,10 +28,15 @@ public class OrderService {
     private final LoyaltyService loyaltyService;
 
     private final OrderRepository repo;
+    private final ApplicationEventPublisher events;
+    private final StockReservationService reservations;
 
-    public OrderService(LoyaltyService loyaltyService, OrderRepository repo) {
+    public OrderService(LoyaltyService loyaltyService, OrderRepository repo, ApplicationEventPublisher events,
+                        StockReservationService reservations) {
         this.loyaltyService = loyaltyService;
         this.repo = repo;
+        this.events = events;
+        this.reservations = reservations;
     }
 
     /**
@@ -49,7 +57,20 @@ public class OrderService {
             o.setConfirmationNumber(generateUniqueConfirmationNumber());
         }
 
-        return repo.save(o);
+        return persist(o);
+    }
+
+    /** Saves and publishes an {@link OrderStatusChangedEvent} when the order is new or its status moved. */
+    private Order persist(Order o) {
+        boolean isNew = o.getId() == null;
+        String before = o.getPersistedStatus();
+
+        Order saved = repo.save(o);
+        if (isNew || !Objects.equals(before, saved.getStatus())) {
+            events.publishEvent(OrderStatusChangedEvent.of(saved, isNew ? null : before));
+        }
+        saved.setPersistedStatus(saved.getStatus());
+        return saved;
     }
 
     public List<Order> findAll() {
@@ -65,52 +86,39 @@ public class OrderService {
         return repo.findTopByUserIdOrderByCreatedAtDesc(userId).orElse(null);
     }
 
-    /** Finds, filters, and sorts all orders for the admin/orders page. */
-    public List<Order> findOrders(String q, java.time.LocalDate from, java.time.LocalDate to, String sort) {
-        return filterAndSort(findAll(), q, from, to, sort);
-    }
+    /**
+     * Admin order search, filtered and paged in the database.
+     * Keyset pagination on (createdAt, id): pass the previous page's {@code nextCursor} as {@code after}.
+     */
+    public OrderPage searchOrders(String q, LocalDate from, LocalDate to, String status,
+                                  String sort, String after, int size) {
+        boolean asc = "dateAsc".equalsIgnoreCase(sort);
+        int limit = Math.max(1, Math.min(size, 200));
+        OrderPage.Cursor cursor = OrderPage.parse(after);
+
+        Specification<Order> spec = Specification.where(OrderSpecs.matches(q))
+                .and(OrderSpecs.createdFrom(from))
+                .and(OrderSpecs.createdTo(to))
+                .and(OrderSpecs.hasStatus(status));
+        if (cursor != null) {
+            spec = spec.and(OrderSpecs.after(cursor.createdAt(), cursor.id(), asc));
+        }
 
-    /** Filters and sorts a given list of orders. */
-    public List<Order> filterAndSort(List<Order> orders, String q, java.time.LocalDate from, java.time.LocalDate to, String sort) {
-        String needle = q != null ? q.toLowerCase() : "";
-
-        return orders.stream()
-                .filter(o -> {
-                    boolean hit = true;
-                    // date filters
-                    if (from != null && o.getCreatedAt() != null && o.getCreatedAt().toLocalDate().isBefore(from)) hit = false;
-                    if (to   != null && o.getCreatedAt() != null && o.getCreatedAt().toLocalDate().isAfter(to))   hit = false;
-
-                    // search query: name, address, or item names
-                    if (hit && !needle.isBlank()) {
-                        boolean inName = o.getCustomerName() != null && o.getCustomerName().toLowerCase().contains(needle);
-                        boolean inAddr = o.getAddress() != null && o.getAddress().toLowerCase().contains(needle);
-                        boolean inItems = o.getItems() != null && o.getItems().stream()
-                                .anyMatch(it -> it != null && it.getProductName() != null &&
-                                        it.getProductName().toLowerCase().contains(needle));
-                        hit = inName || inAddr || inItems;
-                    }
-                    return hit;
-                })
-                .sorted(getComparator(sort))
-                .collect(Collectors.toList());
-    }
+        Sort.Direction dir = asc ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort order = Sort.by(dir, "createdAt").and(Sort.by(dir, "id"));
 
-    private Comparator<Order> getComparator(String sort) {
-        Comparator<Order> byDateAsc = Comparator.comparing(
-                Order::getCreatedAt,
-                (a, b) -> {
-                    if (Objects.equals(a, b)) return 0;
-                    if (a == null) return 1;   // nulls last
-                    if (b == null) return -1;
-                    return a.compareTo(b);
-                }
-        );
-        return "dateAsc".equalsIgnoreCase(sort) ? byDateAsc : byDateAsc.reversed();
+        // fetch one extra row to know whether another page exists
+        List<Order> rows = repo.findBy(spec, query -> query.sortBy(order).limit(limit + 1).all());
+        if (rows.size() <= limit) return new OrderPage(rows, null);
+
+        List<Order> page = rows.subList(0, limit);
+        return new OrderPage(page, OrderPage.cursorOf(page.get(limit - 1)));
     }
 
+    /** Status, loyalty and the stock decrement commit together, or not at all. */
+    @Transactional
     public Order markPaid(Long orderId) {
-        Order o = findById(orderId);
+        Order o = repo.lockById(orderId).orElse(null);
         if (o == null) return null;
 
         o.setStatus("PAID");
@@ -124,15 +132,21 @@ public class OrderService {
             );
         }
 
-        return repo.save(o);
+        // checkout holds become a real stock decrement (no-op if already committed)
+        reservations.commit(o);
+
+        return persist(o);
     }
 
 
+    @Transactional
     public void markPendingCod(Long orderId) {
-        Order o = findById(orderId);
+        Order o = repo.lockById(orderId).orElse(null);
         if (o == null) return;
         o.setStatus("PENDING_COD");
-        repo.save(o);
+        // cash on delivery ships without online payment, so the holds are committed now
+        reservations.commit(o);
+        persist(o);
     }
 
     /* -------------------------
@@ -180,15 +194,8 @@ public class OrderService {
     }
 
     public double calculateTotalRevenue() {
-        // Retrieve all orders from the database
-        List<Order> orders = repo.findAll();
-
-        // Use a Java Stream to filter out null totals and sum the rest
-        return orders.stream()
-                .map(Order::getTotal)
-                .filter(total -> total != null)
-                .mapToDouble(BigDecimal::doubleValue)
-                .sum();
+        // sum of all order totals, aggregated in the database
+        return repo.sumAllTotals().doubleValue();
     }
 
     // Placeholder methods for chart data, replace with your actual implementation
@@ -222,6 +229,7 @@ public class OrderService {
         if (o == null) return;
         o.setStatus("CANCELLED");
         save(o);
+        reservations.release(orderId);
     }
 
     public void markReturnRequested(Long orderId, Long productId) {
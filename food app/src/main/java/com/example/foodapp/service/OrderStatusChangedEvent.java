@@ -0,0 +1,59 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+import com.example.foodapp.model.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Published by {@link OrderService} when an order is created or its status changes.
+ * {@code fromStatus} is null for a newly placed order. {@code unitsByProduct} covers
+ * stocked lines that are still sold (gift cards have negative product ids, and refunded
+ * lines are gone), so it is the order's whole contribution, not a change.
+ */
+public record OrderStatusChangedEvent(Long orderId,
+                                      LocalDate day,
+                                      LocalDateTime placedAt,
+                                      String fromStatus,
+                                      String toStatus,
+                                      BigDecimal total,
+                                      long itemsSold,
+                                      Map<Long, Integer> unitsByProduct) {
+
+    public static OrderStatusChangedEvent of(Order o, String fromStatus) {
+        long items = 0;
+        if (o.getItems() != null) {
+            for (OrderItem it : o.getItems()) {
+                if (it != null && it.getQuantity() != null) items += it.getQuantity();
+            }
+        }
+        return new OrderStatusChangedEvent(
+                o.getId(),
+                o.getCreatedAt() == null ? null : o.getCreatedAt().toLocalDate(),
+                o.getCreatedAt(),
+                fromStatus,
+                o.getStatus(),
+                o.getTotal() == null ? BigDecimal.ZERO : o.getTotal(),
+                items,
+                unitsSold(o)
+        );
+    }
+
+    /** Units per product id of the order's stocked, unrefunded lines. */
+    static Map<Long, Integer> unitsSold(Order o) {
+        Map<Long, Integer> units = new HashMap<>();
+        if (o.getItems() != null) {
+            for (OrderItem it : o.getItems()) {
+                if (it == null || it.getQuantity() == null || it.isRefunded()) continue;
+                if (it.getProductId() != null && it.getProductId() > 0) {
+                    units.merge(it.getProductId(), it.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        return Map.copyOf(units);
+    }
+}
@@ -2,17 +2,22 @@
 package com.example.foodapp.service;
 
 import com.example.foodapp.model.Order;
+import com.example.foodapp.model.OrderItem;
 import com.example.foodapp.model.Payment;
 import com.example.foodapp.model.PaymentMethod;
+import com.example.foodapp.repository.OrderItemRepository;
 import com.example.foodapp.repository.PaymentRepository;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class PaymentService {
@@ -20,15 +25,21 @@ public class PaymentService {
     private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
 
     private final PaymentRepository repo;
+    private final OrderItemRepository orderItems;
     private final EmailService emailService;
     private final PaymentMethodService paymentMethodService;
+    private final ApplicationEventPublisher events;
 
     public PaymentService(PaymentRepository repo,
+                          OrderItemRepository orderItems,
                           EmailService emailService,
-                          PaymentMethodService paymentMethodService) {
+                          PaymentMethodService paymentMethodService,
+                          ApplicationEventPublisher events) {
         this.repo = repo;
+        this.orderItems = orderItems;
         this.emailService = emailService;
         this.paymentMethodService = paymentMethodService;
+        this.events = events;
     }
 
     public Payment findByProviderPaymentId(String providerPaymentId) {
@@ -160,15 +171,22 @@ public class PaymentService {
         return repo.save(refund);
     }
 
+    /** {@code lines} are the order's items this refund paid back; they stop counting as sold. */
     @Transactional
-    public void markRefundCompleted(Payment refund, String externalRefundId, Order order) {
+    public void markRefundCompleted(Payment refund, String externalRefundId, Order order,
+                                    Collection<OrderItem> lines) {
         refund.setRefundExternalId(externalRefundId);
         refund.setRefundedAt(LocalDateTime.now());
         refund.setStatus("REFUNDED");
         repo.save(refund);
 
         if (order != null) {
+            List<Long> ids = lines.stream().map(OrderItem::getId).filter(Objects::nonNull).toList();
+            if (!ids.isEmpty()) orderItems.markRefunded(ids);
+            lines.forEach(it -> it.setReturnStatus(OrderItem.RETURN_REFUNDED));
+
             emailService.sendRefundConfirmation(order, refund);
+            events.publishEvent(OrderRefundedEvent.of(order));
         }
     }
 
@@ -0,0 +1,280 @@
+package com.example.foodapp.service;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.FSStream;
+import com.openhtmltopdf.extend.FSStreamFactory;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.UriUtils;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTML to PDF (openhtmltopdf) on a bounded pool.
+ *
+ * Images and stylesheets that point at this app ({@code app.base-url}) are read straight from
+ * {@code classpath:static/} or the {@code uploads/} directory and kept in memory, instead of
+ * the renderer fetching them over HTTP from ourselves; only other hosts go over the network.
+ * Font metrics are cached across renders, and any {@code static/fonts/*.ttf} is loaded once
+ * and registered under its file name.
+ */
+@Service
+public class PdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderer.class);
+
+    private static final List<String> LOCAL_PREFIXES = List.of("/css/", "/js/", "/images/", "/icons/", "/uploads/", "/fonts/");
+    private static final Path UPLOADS = Paths.get("uploads").toAbsolutePath().normalize();
+
+    private record Cached(byte[] bytes, long stamp) { }
+
+    private final String baseUri;
+    private final String origin;
+    private final long maxCachedBytes;
+    private final Map<String, Cached> resources = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final FSCacheEx<String, FSCacheValue> fontMetrics = new FSDefaultCacheStore();
+    private final Map<String, byte[]> fonts = new LinkedHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localLoads = new LongAdder();
+    private final LongAdder remoteFetches = new LongAdder();
+    private final LongAdder missing = new LongAdder();
+
+    public PdfRenderer(@Value("${app.base-url:http://localhost:8080}") String baseUrl,
+                       @Value("${app.pdf.workers:0}") int workers,
+                       @Value("${app.pdf.queue:200}") int queue,
+                       @Value("${app.pdf.resource-cache-mb:32}") long cacheMb) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.baseUri = base + "/";
+        URI u = URI.create(baseUri);
+        this.origin = u.getScheme() + "://" + u.getRawAuthority();
+        this.maxCachedBytes = cacheMb * 1024 * 1024;
+
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queue)),
+                r -> {
+                    Thread t = new Thread(r, "pdf-render-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        loadFonts();
+    }
+
+    /** Renders on the pool and waits; the calling thread does no PDF work itself. */
+    public byte[] render(String html) {
+        try {
+            return renderAsync(html).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    public CompletableFuture<byte[]> renderAsync(String html) {
+        try {
+            return CompletableFuture.supplyAsync(() -> renderNow(html), executor);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("PDF renderer is busy, try again shortly", e);
+        }
+    }
+
+    private byte[] renderNow(String html) {
+        long start = System.nanoTime();
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024)) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.withHtmlContent(html, baseUri);
+            builder.useProtocolsStreamImplementation(streams, "http", "https");
+            builder.useCacheStore(BaseRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetrics);
+            fonts.forEach((family, bytes) -> builder.useFont(() -> new ByteArrayInputStream(bytes), family));
+            builder.toStream(out);
+            builder.run();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("PDF generation failed: " + e.getMessage(), e);
+        } finally {
+            renders.increment();
+            renderNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /* =========================
+       Resources
+       ========================= */
+
+    private final FSStreamFactory streams = url -> new FSStream() {
+        @Override
+        public InputStream getStream() {
+            byte[] bytes = fetch(url);
+            return bytes == null ? null : new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public Reader getReader() {
+            byte[] bytes = fetch(url);
+            return bytes == null ? null : new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+        }
+    };
+
+    private byte[] fetch(String url) {
+        byte[] bytes = url.startsWith(origin + "/") ? local(url.substring(origin.length())) : remote(url);
+        if (bytes == null) missing.increment();
+        return bytes;
+    }
+
+    /** {@code /images/x.png} style paths, from uploads/ or classpath static/, cached by path. */
+    private byte[] local(String rawPath) {
+        int cut = indexOfAny(rawPath, '?', '#');
+        String path = UriUtils.decode(cut < 0 ? rawPath : rawPath.substring(0, cut), StandardCharsets.UTF_8);
+        if (path.contains("..") || LOCAL_PREFIXES.stream().noneMatch(path::startsWith)) return remote(origin + rawPath);
+
+        try {
+            // uploaded files can be replaced, so they're keyed by modification time too
+            Path upload = null;
+            if (path.startsWith("/uploads/")) {
+                upload = uploadPath(path);
+                if (upload == null) return null;
+            }
+            long stamp = upload != null && Files.isRegularFile(upload) ? Files.getLastModifiedTime(upload).toMillis() : 0;
+
+            Cached c = resources.get(path);
+            if (c != null && c.stamp() == stamp) {
+                localHits.increment();
+                return c.bytes();
+            }
+
+            byte[] bytes;
+            if (stamp != 0) {
+                bytes = Files.readAllBytes(upload);
+            } else {
+                ClassPathResource r = new ClassPathResource("static" + path);
+                if (!r.exists()) return null;
+                try (InputStream in = r.getInputStream()) {
+                    bytes = StreamUtils.copyToByteArray(in);
+                }
+            }
+            localLoads.increment();
+            cache(path, new Cached(bytes, stamp));
+            return bytes;
+        } catch (IOException e) {
+            log.debug("PDF resource {} unreadable: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /** The file under uploads/ for an {@code /uploads/...} path, or null if it would resolve outside ({@code /uploads//etc/passwd}). */
+    static Path uploadPath(String path) {
+        try {
+            Path resolved = UPLOADS.resolve(path.substring("/uploads/".length())).normalize();
+            return resolved.startsWith(UPLOADS) && !resolved.equals(UPLOADS) ? resolved : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces whatever is cached for {@code path}. The byte count is adjusted inside the
+     * compute, against the entry actually being replaced, so racing loads of the same path
+     * can't count it twice.
+     */
+    private void cache(String path, Cached fresh) {
+        resources.compute(path, (k, current) -> {
+            long held = current == null ? 0 : current.bytes().length;
+            if (cachedBytes.get() - held + fresh.bytes().length > maxCachedBytes) {
+                cachedBytes.addAndGet(-held);  // over budget: serve uncached, drop the stale copy
+                return null;
+            }
+            cachedBytes.addAndGet(fresh.bytes().length - held);
+            return fresh;
+        });
+    }
+
+    private byte[] remote(String url) {
+        remoteFetches.increment();
+        try {
+            URLConnection conn = URI.create(url).toURL().openConnection();
+            conn.setConnectTimeout(3000);
+            conn.setReadTimeout(5000);
+            try (InputStream in = conn.getInputStream()) {
+                return StreamUtils.copyToByteArray(in);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("PDF resource {} unavailable: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private void loadFonts() {
+        try {
+            for (Resource r : new PathMatchingResourcePatternResolver().getResources("classpath:static/fonts/*.ttf")) {
+                String file = r.getFilename();
+                if (file == null) continue;
+                try (InputStream in = r.getInputStream()) {
+                    fonts.put(file.substring(0, file.length() - 4), StreamUtils.copyToByteArray(in));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not load PDF fonts: {}", e.getMessage());
+        }
+        if (!fonts.isEmpty()) log.info("PDF fonts loaded: {}", fonts.keySet());
+    }
+
+    private static int indexOfAny(String s, char a, char b) {
+        int i = s.indexOf(a), j = s.indexOf(b);
+        return i < 0 ? j : j < 0 ? i : Math.min(i, j);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        long n = renders.sum();
+        out.put("renders", n);
+        out.put("avgRenderMillis", n == 0 ? 0d : renderNanos.sum() / 1e6 / n);
+        out.put("poolSize", executor.getMaximumPoolSize());
+        out.put("active", executor.getActiveCount());
+        out.put("queued", executor.getQueue().size());
+        out.put("resourceHits", localHits.sum());
+        out.put("resourceLoads", localLoads.sum());
+        out.put("remoteFetches", remoteFetches.sum());
+        out.put("missingResources", missing.sum());
+        out.put("cachedResources", resources.size());
+        out.put("cachedBytes", cachedBytes.get());
+        out.put("fonts", fonts.keySet());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
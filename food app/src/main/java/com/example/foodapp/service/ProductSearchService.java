@@ -0,0 +1,146 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.config.PostgresSearchIndexes;
+import com.example.foodapp.model.Product;
+import com.example.foodapp.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Ranked product search and prefix autocomplete.
+ *
+ * On Postgres the weighted search_vector (name > category > description) and pg_trgm do the
+ * matching and ranking; only ids come back and are hydrated from the catalog snapshot.
+ * Anywhere else (H2, or if the Postgres objects couldn't be created) the same weighting is
+ * applied in-process over the snapshot, with trigram similarity for typo tolerance.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private static final double NAME_EXACT = 3.0, NAME_PREFIX = 2.5, NAME_CONTAINS = 2.0;
+    private static final double CATEGORY = 1.5, DESCRIPTION = 0.5, TYPO = 1.5;
+    private static final double TYPO_THRESHOLD = 0.4;
+
+    private final ProductRepository repo;
+    private final CatalogCache catalog;
+    private final PostgresSearchIndexes postgres;
+
+    public ProductSearchService(ProductRepository repo, CatalogCache catalog, PostgresSearchIndexes postgres) {
+        this.repo = repo;
+        this.catalog = catalog;
+        this.postgres = postgres;
+    }
+
+    public List<Product> search(String query, int limit) {
+        List<String> tokens = SearchText.tokens(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        if (postgres.productSearchReady()) {
+            try {
+                return hydrate(repo.searchRankedIds(prefixQuery(tokens), String.join(" ", tokens), limit));
+            } catch (RuntimeException e) {
+                log.warn("Postgres product search failed, using in-process fallback: {}", e.getMessage());
+            }
+        }
+        return searchInProcess(tokens, limit);
+    }
+
+    public List<Product> autocomplete(String prefix, int limit) {
+        List<String> tokens = SearchText.tokens(prefix);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        if (postgres.productSearchReady()) {
+            try {
+                return hydrate(repo.autocompleteIds(String.join(" ", tokens) + "%", prefixQuery(tokens), limit));
+            } catch (RuntimeException e) {
+                log.warn("Postgres autocomplete failed, using in-process fallback: {}", e.getMessage());
+            }
+        }
+        return autocompleteInProcess(tokens, limit);
+    }
+
+    /** "gar masa" -> "gar:* & masa:*" (tokens are already stripped to letters/digits). */
+    private static String prefixQuery(List<String> tokens) {
+        StringJoiner j = new StringJoiner(" & ");
+        for (String t : tokens) j.add(t + ":*");
+        return j.toString();
+    }
+
+    private List<Product> hydrate(List<Long> ids) {
+        CatalogSnapshot snap = catalog.current();
+        List<Product> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product p = snap.product(id);
+            if (p != null) out.add(p);
+        }
+        return out;
+    }
+
+    // ---------- in-process fallback ----------
+
+    private List<Product> searchInProcess(List<String> tokens, int limit) {
+        List<Map.Entry<Product, Double>> hits = new ArrayList<>();
+        for (Product p : catalog.current().products()) {
+            double score = score(p, tokens);
+            if (score > 0) hits.add(Map.entry(p, score));
+        }
+        return top(hits, limit);
+    }
+
+    /** Every token must hit somewhere (AND, like the tsquery); the best field hit per token counts. */
+    private static double score(Product p, List<String> tokens) {
+        List<String> nameWords = SearchText.tokens(p.getName());
+        String category = SearchText.normalize(p.getCategory() == null ? null : p.getCategory().getName());
+        String description = SearchText.normalize(p.getDescription());
+
+        double total = 0;
+        for (String t : tokens) {
+            double best = 0;
+            for (String w : nameWords) {
+                if (w.equals(t)) best = Math.max(best, NAME_EXACT);
+                else if (w.startsWith(t)) best = Math.max(best, NAME_PREFIX);
+                else if (w.contains(t)) best = Math.max(best, NAME_CONTAINS);
+                else {
+                    double sim = SearchText.similarity(w, t);
+                    if (sim >= TYPO_THRESHOLD) best = Math.max(best, TYPO * sim);
+                }
+            }
+            if (best < CATEGORY && category.contains(t)) best = CATEGORY;
+            if (best < DESCRIPTION && description.contains(t)) best = DESCRIPTION;
+            if (best == 0) return 0;
+            total += best;
+        }
+        return total;
+    }
+
+    private List<Product> autocompleteInProcess(List<String> tokens, int limit) {
+        String whole = String.join(" ", tokens);
+        List<Map.Entry<Product, Double>> hits = new ArrayList<>();
+        for (Product p : catalog.current().products()) {
+            String name = SearchText.normalize(p.getName());
+            if (name.startsWith(whole)) {
+                hits.add(Map.entry(p, 2.0));
+                continue;
+            }
+            List<String> words = new ArrayList<>(SearchText.tokens(p.getName()));
+            if (p.getCategory() != null) words.addAll(SearchText.tokens(p.getCategory().getName()));
+            boolean all = tokens.stream().allMatch(t -> words.stream().anyMatch(w -> w.startsWith(t)));
+            if (all) hits.add(Map.entry(p, 1.0));
+        }
+        return top(hits, limit);
+    }
+
+    private static List<Product> top(List<Map.Entry<Product, Double>> hits, int limit) {
+        hits.sort(Map.Entry.<Product, Double>comparingByValue().reversed()
+                .thenComparing(e -> e.getKey().getName() == null ? "" : e.getKey().getName(),
+                        String.CASE_INSENSITIVE_ORDER));
+        List<Product> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) out.add(hits.get(i).getKey());
+        return out;
+    }
+}
@@ -3,8 +3,7 @@ package com.example.foodapp.service;
 import com.example.foodapp.model.Product;
 import com.example.foodapp.repository.ProductRepository;
 import com.example.foodapp.repository.ProductSpecs;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -15,37 +14,41 @@ import java.util.*;
 @Service
 public class ProductService {
     private final ProductRepository repo;
+    private final CatalogCache catalog;
+    private final ApplicationEventPublisher events;
+    private final ProductSearchService searchService;
 
-    public ProductService(ProductRepository repo) {
+    public ProductService(ProductRepository repo, CatalogCache catalog, ApplicationEventPublisher events,
+                          ProductSearchService searchService) {
         this.repo = repo;
+        this.catalog = catalog;
+        this.events = events;
+        this.searchService = searchService;
     }
 
+    /** Read-only list served from the in-memory catalog snapshot (category + variants loaded). */
     public List<Product> findAll() {
-        return repo.findAllWithCategory();
-    } // eager load category for view
+        return catalog.current().products();
+    }
 
     public Product save(Product p) {
-        return repo.save(p);
+        Product saved = repo.save(p);
+        events.publishEvent(CatalogChangedEvent.productSaved(saved.getId()));
+        return saved;
     }
 
     public void delete(Long id) {
         repo.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.productDeleted(id));
     }
 
+    /** Managed entity straight from the DB – use this for anything that gets modified. */
     public Product findById(Long id) {
         return repo.findById(id).orElse(null);
     }
 
     public List<Product> findByCategoryId(Long categoryId) {
-        return repo.findByCategory_Id(categoryId);
-    }
-
-    public List<Product> searchByName(String q) {
-        return repo.findTop5ByNameContainingIgnoreCase(q);
-    }
-
-    public List<Product> searchByCategoryName(String q) {
-        return repo.findTop5ByCategory_NameContainingIgnoreCase(q);
+        return catalog.current().byCategory(categoryId);
     }
 
 //    public List<Product> filter(String q, BigDecimal min, BigDecimal max, Long categoryId, String sort) {
@@ -68,28 +71,33 @@ public class ProductService {
 //        return list;
 //    }
 
+    /** Ranked, typo-tolerant search (see {@link ProductSearchService}). */
     public List<Product> search(String query, int limit) {
         if (query == null || query.isBlank()) return List.of();
-
-        // Add pagination + fuzzy search
-        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, 12)));
-
-        return repo.searchByKeyword(query.toLowerCase(), pageable);
+        return searchService.search(query, Math.max(1, Math.min(limit, 12)));
     }
 
 
 
     public long count() {
-        return repo.count();
+        return catalog.current().products().size();
     }
 
     public List<Product> findLowStock(int threshold){
-        return repo.findLowStock(threshold);
+        List<Product> out = new ArrayList<>();
+        for (Product p : catalog.current().products()) {
+            boolean low = (p.getVariants() == null || p.getVariants().isEmpty())
+                    ? p.getStock() != null && p.getStock() <= threshold
+                    : p.getVariants().stream().anyMatch(v -> v.getStock() != null && v.getStock() <= threshold);
+            if (low) out.add(p);
+        }
+        out.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
+        return out;
     }
 
 
     public List<Product> findAllForMenu() {
-        return repo.findAllWithVariantsAndCategory();
+        return catalog.current().products();
     }
 
 
@@ -100,17 +108,17 @@ public class ProductService {
                                 Long categoryId,
                                 String sort) {
 
-        // Raw list can contain duplicates if query joins variants
-        List<Product> raw = repo.searchWithVariants(q, min, max, categoryId);
+        // Runs against the in-memory snapshot (already one entry per product)
+        String needle = (q == null || q.isBlank()) ? null : q.trim().toLowerCase(Locale.ROOT);
 
-        // --- DEDUPE: keep only the first Product for each id ---
-        Map<Long, Product> unique = new LinkedHashMap<>();
-        for (Product p : raw) {
-            if (p != null && p.getId() != null) {
-                unique.putIfAbsent(p.getId(), p);
-            }
+        List<Product> products = new ArrayList<>();
+        for (Product p : catalog.current().products()) {
+            if (needle != null && (p.getName() == null || !p.getName().toLowerCase(Locale.ROOT).contains(needle))) continue;
+            if (min != null && (p.getPrice() == null || p.getPrice().compareTo(min) < 0)) continue;
+            if (max != null && (p.getPrice() == null || p.getPrice().compareTo(max) > 0)) continue;
+            if (categoryId != null && (p.getCategory() == null || !categoryId.equals(p.getCategory().getId()))) continue;
+            products.add(p);
         }
-        List<Product> products = new ArrayList<>(unique.values());
 
         // --- Sorting (use ONE style of switch; here classic colon style) ---
         if (sort == null) sort = "nameAsc";
@@ -0,0 +1,89 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.RatingSummary;
+import com.example.foodapp.repository.ReviewRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * productId -> approved rating count/sum, loaded with one grouped query at startup and
+ * kept current from {@link ReviewChangedEvent}s (applied after commit).
+ */
+@Component
+public class RatingSummaryStore {
+
+    private final ReviewRepository repo;
+    private final Map<Long, RatingSummary> byProduct = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public RatingSummaryStore(ReviewRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        ensureLoaded();
+    }
+
+    public RatingSummary get(Long productId) {
+        ensureLoaded();
+        if (productId == null) return RatingSummary.EMPTY;
+        return byProduct.getOrDefault(productId, RatingSummary.EMPTY);
+    }
+
+    public Map<Long, RatingSummary> getAll(Collection<Long> productIds) {
+        ensureLoaded();
+        Map<Long, RatingSummary> out = new HashMap<>();
+        for (Long id : productIds) {
+            if (id != null) out.put(id, byProduct.getOrDefault(id, RatingSummary.EMPTY));
+        }
+        return out;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent e) {
+        if (!loaded || e.productId() == null) return; // the initial load will pick it up
+
+        if (e.added()) {
+            byProduct.merge(e.productId(), new RatingSummary(1, e.rating()), RatingSummary::plus);
+        } else {
+            refresh(e.productId());
+        }
+    }
+
+    /** Re-read one product's aggregate (edits, moderation flips). */
+    public void refresh(Long productId) {
+        List<Object[]> rows = repo.approvedRatingStatsFor(productId);
+        RatingSummary s = rows.isEmpty() ? RatingSummary.EMPTY : toSummary(rows.get(0)[0], rows.get(0)[1]);
+        if (s.count() == 0) byProduct.remove(productId);
+        else byProduct.put(productId, s);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            Map<Long, RatingSummary> fresh = new HashMap<>();
+            for (Object[] row : repo.approvedRatingStats()) {
+                fresh.put(((Number) row[0]).longValue(), toSummary(row[1], row[2]));
+            }
+            byProduct.clear();
+            byProduct.putAll(fresh);
+            loaded = true;
+        }
+    }
+
+    private static RatingSummary toSummary(Object count, Object sum) {
+        long c = count == null ? 0 : ((Number) count).longValue();
+        long s = sum == null ? 0 : ((Number) sum).longValue();
+        return new RatingSummary(c, s);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.foodapp.service;
+
+/**
+ * Published by {@link ReviewService} when a review is written.
+ * {@code added} = a brand-new approved review (applied as +1 to the aggregate);
+ * otherwise the product's aggregate is re-read from the DB.
+ */
+public record ReviewChangedEvent(Long productId, int rating, boolean added) {}
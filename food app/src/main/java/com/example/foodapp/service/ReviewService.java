@@ -2,28 +2,59 @@
 package com.example.foodapp.service;
 
 import com.example.foodapp.model.Product;
+import com.example.foodapp.model.RatingSummary;
 import com.example.foodapp.model.Review;
 import com.example.foodapp.model.User;
 import com.example.foodapp.repository.ReviewRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ReviewService {
     private final ReviewRepository repo;
+    private final RatingSummaryStore ratings;
+    private final ApplicationEventPublisher events;
 
-    public ReviewService(ReviewRepository repo) { this.repo = repo; }
+    public ReviewService(ReviewRepository repo, RatingSummaryStore ratings, ApplicationEventPublisher events) {
+        this.repo = repo;
+        this.ratings = ratings;
+        this.events = events;
+    }
 
     public List<Review> list(Product p) {
         return repo.findByProductAndApprovedOrderByCreatedAtDesc(p, true);
     }
 
-    public double avg(Product p) { return repo.avgRating(p); }
+    // O(1) reads from the in-memory aggregate (no query per product)
+    public double avg(Product p) { return p == null ? 0d : ratings.get(p.getId()).average(); }
+
+    public long count(Product p) { return p == null ? 0L : ratings.get(p.getId()).count(); }
+
+    /** productId -> average rating, for product cards (menu, best sellers). */
+    public Map<Long, Double> avgMap(Collection<Product> products) {
+        Map<Long, Double> out = new HashMap<>();
+        summaries(products).forEach((id, s) -> out.put(id, s.average()));
+        return out;
+    }
 
-    public long count(Product p) { return repo.countApproved(p); }
+    /** productId -> approved review count, for product cards (menu, best sellers). */
+    public Map<Long, Long> countMap(Collection<Product> products) {
+        Map<Long, Long> out = new HashMap<>();
+        summaries(products).forEach((id, s) -> out.put(id, s.count()));
+        return out;
+    }
+
+    private Map<Long, RatingSummary> summaries(Collection<Product> products) {
+        if (products == null || products.isEmpty()) return Map.of();
+        return ratings.getAll(products.stream().map(Product::getId).toList());
+    }
 
     public boolean userAlreadyReviewed(Long productId, Long userId) {
         return repo.existsByProductIdAndUserId(productId, userId);
@@ -38,7 +69,11 @@ public class ReviewService {
         r.setTitle(title == null ? "" : title.trim());
         r.setComment(comment == null ? "" : comment.trim());
         r.setApproved(true); // flip to false if you want moderation
-        return repo.save(r);
+        Review saved = repo.save(r);
+        if (saved.isApproved()) {
+            events.publishEvent(new ReviewChangedEvent(p.getId(), saved.getRating(), true));
+        }
+        return saved;
     }
 
 
@@ -48,7 +83,17 @@ public class ReviewService {
 
     /** Save / update a review */
     public Review save(Review review) {
-        return repo.save(review);
+        boolean isNew = review.getId() == null;
+        Review saved = repo.save(review);
+
+        Long productId = saved.getProduct() != null ? saved.getProduct().getId() : null;
+        if (!isNew) {
+            // edit or moderation flip: re-read this product's aggregate
+            events.publishEvent(new ReviewChangedEvent(productId, saved.getRating(), false));
+        } else if (saved.isApproved()) {
+            events.publishEvent(new ReviewChangedEvent(productId, saved.getRating(), true));
+        }
+        return saved;
     }
 
 
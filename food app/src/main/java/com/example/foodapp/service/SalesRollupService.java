@@ -0,0 +1,165 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.DailySalesRollup;
+import com.example.foodapp.model.SalesBucket;
+import com.example.foodapp.repository.AnalyticsRepository;
+import com.example.foodapp.repository.DailySalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Maintains the daily_sales_rollup table.
+ *
+ * Status transitions move an order's count/revenue/items from one bucket to another with
+ * atomic update statements; distinct customers are recounted for the touched (day, bucket).
+ * A missing (day, bucket) row is first inserted empty in its own transaction, where losing the
+ * race to another node's insert is harmless, so the delta itself is always a plain update.
+ * A nightly job rebuilds the recent window from orders to repair any drift
+ * (e.g. totals edited while the status stayed the same).
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private final DailySalesRollupRepository rollups;
+    private final AnalyticsRepository analytics;
+    private final TransactionTemplate requiresNew;
+
+    @Value("${app.rollup.reconcile-days:35}")
+    private int reconcileDays;
+
+    public SalesRollupService(DailySalesRollupRepository rollups,
+                              AnalyticsRepository analytics,
+                              PlatformTransactionManager txManager) {
+        this.rollups = rollups;
+        this.analytics = analytics;
+        this.requiresNew = new TransactionTemplate(txManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Inclusive range of rollup rows, oldest first. */
+    public List<DailySalesRollup> range(LocalDate from, LocalDate to) {
+        return rollups.findByDayBetweenOrderByDayAsc(from, to);
+    }
+
+    // Runs after the order transaction commits; failures must not reach the checkout flow.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent e) {
+        SalesBucket from = e.fromStatus() == null ? null : SalesBucket.of(e.fromStatus());
+        SalesBucket to = SalesBucket.of(e.toStatus());
+        if (e.day() == null || from == to) return;
+
+        try {
+            // outside the delta transaction, so its locks can't block the insert
+            if (from != null) ensureRow(e.day(), from);
+            ensureRow(e.day(), to);
+            requiresNew.executeWithoutResult(s -> {
+                if (from != null) applyDelta(e.day(), from, -1, e.total().negate(), -e.itemsSold());
+                applyDelta(e.day(), to, 1, e.total(), e.itemsSold());
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Sales rollup update failed for order #{} ({} -> {}); nightly reconcile will repair it",
+                    e.orderId(), from, to, ex);
+        }
+    }
+
+    private void applyDelta(LocalDate day, SalesBucket bucket, long orders, BigDecimal revenue, long items) {
+        long customers = analytics.distinctCustomersBetween(
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay(), bucket.statuses());
+
+        if (rollups.addDelta(day, bucket, orders, revenue, items, customers) == 0) {
+            // only a reconcile deleting the day in between gets here; it rebuilds from orders anyway
+            throw new IllegalStateException("Sales rollup row " + day + "/" + bucket + " disappeared");
+        }
+    }
+
+    /** Inserts an empty (day, bucket) row unless one exists; a concurrent insert of the same key wins quietly. */
+    private void ensureRow(LocalDate day, SalesBucket bucket) {
+        if (rollups.existsByDayAndStatusBucket(day, bucket)) return;
+        try {
+            requiresNew.executeWithoutResult(s -> rollups.saveAndFlush(new DailySalesRollup(day, bucket)));
+        } catch (DataIntegrityViolationException raced) {
+            log.debug("Sales rollup row {}/{} was created concurrently", day, bucket);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollups.count() == 0) reconcileRecent();
+        } catch (RuntimeException ex) {
+            log.warn("Sales rollup backfill failed", ex);
+        }
+    }
+
+    @Scheduled(cron = "${app.rollup.reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecent() {
+        LocalDate today = LocalDate.now();
+        reconcile(today.minusDays(Math.max(1, reconcileDays) - 1L), today);
+    }
+
+    /** Rebuilds every day in [from, to] from the orders table, one transaction per day. */
+    public void reconcile(LocalDate from, LocalDate to) {
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            LocalDate day = d;
+            requiresNew.executeWithoutResult(s -> rebuildDay(day));
+        }
+        log.info("Sales rollup reconciled {}..{}", from, to);
+    }
+
+    private void rebuildDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+
+        Map<SalesBucket, DailySalesRollup> rows = new EnumMap<>(SalesBucket.class);
+        Map<SalesBucket, Set<String>> customers = new EnumMap<>(SalesBucket.class);
+
+        for (Object[] r : analytics.orderTotalsByStatusAndEmail(start, end)) {
+            String status = (String) r[0];
+            String email = (String) r[1];
+            SalesBucket bucket = SalesBucket.of(status);
+
+            rows.computeIfAbsent(bucket, b -> new DailySalesRollup(day, b))
+                    .add(((Number) r[2]).longValue(), toBigDecimal(r[3]), 0);
+
+            // same rule as the incremental path: only statuses listed on the bucket count
+            if (email != null && status != null && bucket.statuses().contains(status)) {
+                customers.computeIfAbsent(bucket, b -> new HashSet<>()).add(email);
+            }
+        }
+
+        for (Object[] r : analytics.itemsSoldByStatus(start, end)) {
+            SalesBucket bucket = SalesBucket.of((String) r[0]);
+            rows.computeIfAbsent(bucket, b -> new DailySalesRollup(day, b))
+                    .add(0, BigDecimal.ZERO, ((Number) r[1]).longValue());
+        }
+
+        rows.forEach((bucket, row) ->
+                row.setDistinctCustomers(customers.getOrDefault(bucket, Set.of()).size()));
+
+        rollups.deleteDay(day);
+        rollups.saveAll(rows.values());
+    }
+
+    private static BigDecimal toBigDecimal(Object v) {
+        if (v == null) return BigDecimal.ZERO;
+        if (v instanceof BigDecimal bd) return bd;
+        return new BigDecimal(String.valueOf(v));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.SalesBucket;
+import com.example.foodapp.repository.AnalyticsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Units sold per product over the last {@link #MAX_DAYS} days, in hourly buckets (a ring of
+ * MAX_DAYS * 24 slots indexed by order hour).
+ *
+ * Running totals are kept for the standard windows ({@link TopSellersService#WINDOWS}); as the
+ * clock passes an hour boundary, the hour that falls out of each window is subtracted, so a
+ * top-K read is a sort over the current products only. Any other window up to MAX_DAYS sums
+ * the buckets it covers.
+ *
+ * Orders count by the hour they were placed, while in a {@link SalesBucket#PAID} status, with
+ * the units of their unrefunded lines. What each order currently contributes is kept, and every
+ * status change or completed refund replaces it with the order's new contribution, so a refund
+ * of one line takes out just that line and seeing the same event twice changes nothing.
+ * The ring is rebuilt from the orders table at startup and nightly; orders that change while
+ * the rebuild query runs are re-applied on top of what it read.
+ */
+@Component
+public class SalesWindow {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesWindow.class);
+
+    public static final int MAX_DAYS = 90;
+    private static final int HOURS = MAX_DAYS * 24;
+
+    /** An order's contribution: units per product id at the hour it was placed. */
+    private record Sold(long hour, Map<Long, Integer> units) { }
+
+    private final AnalyticsRepository analytics;
+    private final Object rebuildLock = new Object();
+
+    // guarded by this
+    private final long[] slotHour = new long[HOURS];
+    private final List<Map<Long, Long>> slots = new ArrayList<>(HOURS);
+    private final Map<Integer, Map<Long, Long>> totals = new HashMap<>();
+    private final Map<Long, Sold> byOrder = new HashMap<>();
+    private Map<Long, Sold> changedDuringRebuild;  // non-null while a rebuild query runs; null value = not sold
+    private long currentHour;
+
+    public SalesWindow(AnalyticsRepository analytics) {
+        this.analytics = analytics;
+        for (int i = 0; i < HOURS; i++) slots.add(new HashMap<>());
+        reset(hourOf(LocalDateTime.now()));
+    }
+
+    /** Products with units sold in the last {@code days} days, best first (ties by id). */
+    public synchronized List<TopSellersService.Ranked> top(int days, int limit) {
+        advance(hourOf(LocalDateTime.now()));
+        int window = Math.max(1, Math.min(days, MAX_DAYS));
+        Map<Long, Long> units = totals.get(window);
+        if (units == null) units = sum(window);
+
+        List<TopSellersService.Ranked> out = new ArrayList<>(units.size());
+        units.forEach((id, qty) -> {
+            if (qty > 0) out.add(new TopSellersService.Ranked(id, qty));
+        });
+        out.sort(Comparator.comparingLong(TopSellersService.Ranked::quantity).reversed()
+                .thenComparing(TopSellersService.Ranked::productId));
+        return limit > 0 && out.size() > limit ? List.copyOf(out.subList(0, limit)) : out;
+    }
+
+    // after commit, so a rolled-back payment never counts
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent e) {
+        record(e.orderId(), e.placedAt(), e.toStatus(), e.unitsByProduct());
+    }
+
+    // a return request alone changes nothing; the refunded lines go once the money does
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderRefunded(OrderRefundedEvent e) {
+        record(e.orderId(), e.placedAt(), e.status(), e.unitsByProduct());
+    }
+
+    private synchronized void record(Long orderId, LocalDateTime placedAt, String status, Map<Long, Integer> units) {
+        if (orderId == null || placedAt == null) return;
+        advance(hourOf(LocalDateTime.now()));
+        boolean sold = SalesBucket.of(status) == SalesBucket.PAID && !units.isEmpty();
+        Sold now = sold ? new Sold(Math.min(hourOf(placedAt), currentHour), units) : null;
+        apply(orderId, now);
+        if (changedDuringRebuild != null) changedDuringRebuild.put(orderId, now);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        rebuild();
+    }
+
+    /** Repairs drift, e.g. from quantities edited on an already-paid order. */
+    @Scheduled(cron = "${app.sales-window.rebuild-cron:0 45 2 * * *}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            LocalDateTime now = LocalDateTime.now();
+            synchronized (this) {
+                changedDuringRebuild = new HashMap<>();
+            }
+            List<Object[]> rows;
+            try {
+                rows = analytics.unitsSoldByOrder(SalesBucket.PAID.statuses(), now.minusDays(MAX_DAYS));
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+                log.warn("Sales window rebuild failed, keeping current counts: {}", ex.getMessage());
+                return;
+            }
+
+            Map<Long, Long> placed = new HashMap<>();
+            Map<Long, Map<Long, Integer>> units = new HashMap<>();
+            for (Object[] r : rows) {
+                Long orderId = ((Number) r[0]).longValue();
+                placed.putIfAbsent(orderId, hourOf((LocalDateTime) r[2]));
+                units.computeIfAbsent(orderId, k -> new HashMap<>())
+                        .merge(((Number) r[1]).longValue(), ((Number) r[3]).intValue(), Integer::sum);
+            }
+
+            int changed;
+            synchronized (this) {
+                Map<Long, Sold> during = changedDuringRebuild;
+                changedDuringRebuild = null;
+                reset(hourOf(now));
+                placed.forEach((orderId, hour) -> apply(orderId,
+                        new Sold(Math.min(hour, currentHour), Map.copyOf(units.get(orderId)))));
+                // the query may or may not have seen these; their latest state wins either way
+                during.forEach(this::apply);
+                changed = during.size();
+            }
+            log.info("Sales window rebuilt from {} orders ({} changed meanwhile)", placed.size(), changed);
+        }
+    }
+
+    /* =========================
+       Ring maintenance (callers hold the lock)
+       ========================= */
+
+    /** Replaces the order's contribution; null means it no longer counts. */
+    private void apply(Long orderId, Sold sold) {
+        Sold old = sold == null ? byOrder.remove(orderId) : byOrder.put(orderId, sold);
+        if (old != null) old.units().forEach((productId, qty) -> add(old.hour(), productId, -(long) qty));
+        if (sold != null) sold.units().forEach((productId, qty) -> add(sold.hour(), productId, qty));
+    }
+
+    private void add(long hour, Long productId, long qty) {
+        if (hour > currentHour) hour = currentHour;  // clock skew: count it as now
+        long age = currentHour - hour;
+        if (age >= HOURS) return;
+
+        slots.get(slot(hour)).merge(productId, qty, SalesWindow::plus);
+        totals.forEach((days, units) -> {
+            if (age < days * 24L) units.merge(productId, qty, SalesWindow::plus);
+        });
+    }
+
+    /** Moves the ring to {@code hour}, dropping hours that left each window. */
+    private void advance(long hour) {
+        if (hour <= currentHour) return;
+        if (hour - currentHour >= HOURS) {
+            reset(hour);
+            return;
+        }
+        for (long h = currentHour + 1; h <= hour; h++) {
+            for (Map.Entry<Integer, Map<Long, Long>> w : totals.entrySet()) {
+                long leaving = h - w.getKey() * 24L;
+                int s = slot(leaving);
+                if (slotHour[s] == leaving) subtract(w.getValue(), slots.get(s));
+            }
+            int s = slot(h);
+            slots.get(s).clear();
+            slotHour[s] = h;
+        }
+        currentHour = hour;
+        byOrder.values().removeIf(sold -> currentHour - sold.hour() >= HOURS);
+    }
+
+    private void reset(long hour) {
+        for (int i = 0; i < HOURS; i++) {
+            slots.get(i).clear();
+            slotHour[i] = Long.MIN_VALUE;
+        }
+        for (long h = hour - HOURS + 1; h <= hour; h++) slotHour[slot(h)] = h;
+        totals.clear();
+        for (int days : TopSellersService.WINDOWS) totals.put(days, new HashMap<>());
+        byOrder.clear();
+        currentHour = hour;
+    }
+
+    private Map<Long, Long> sum(int days) {
+        Map<Long, Long> out = new HashMap<>();
+        for (long h = currentHour - days * 24L + 1; h <= currentHour; h++) {
+            slots.get(slot(h)).forEach((id, qty) -> out.merge(id, qty, Long::sum));
+        }
+        return out;
+    }
+
+    private static void subtract(Map<Long, Long> units, Map<Long, Long> bucket) {
+        bucket.forEach((id, qty) -> {
+            long left = units.getOrDefault(id, 0L) - qty;
+            if (left <= 0) units.remove(id);
+            else units.put(id, left);
+        });
+    }
+
+    // a product that nets to zero leaves the map
+    private static Long plus(Long a, Long b) {
+        long sum = a + b;
+        return sum == 0 ? null : sum;
+    }
+
+    private static int slot(long hour) {
+        return (int) Math.floorMod(hour, (long) HOURS);
+    }
+
+    private static long hourOf(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.foodapp.service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Text helpers shared by the in-process search code: normalisation, tokenising and
+ * pg_trgm-style trigram similarity (so in-process results behave like the Postgres ones).
+ */
+final class SearchText {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchText() {}
+
+    /** Lower-case, accents stripped, punctuation collapsed to single spaces. */
+    static String normalize(String s) {
+        if (s == null) return "";
+        String t = Normalizer.normalize(s, Normalizer.Form.NFD);
+        t = MARKS.matcher(t).replaceAll("");
+        return NON_WORD.matcher(t.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static List<String> tokens(String s) {
+        String n = normalize(s);
+        if (n.isEmpty()) return List.of();
+        return List.of(n.split(" "));
+    }
+
+    /** Trigrams of one word, padded like pg_trgm ("  w", " wo", ..., "rd "). */
+    static Set<String> trigrams(String word) {
+        Set<String> out = new HashSet<>();
+        if (word == null || word.isEmpty()) return out;
+        String padded = "  " + word + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            out.add(padded.substring(i, i + 3));
+        }
+        return out;
+    }
+
+    static double similarity(String a, String b) {
+        Set<String> ta = trigrams(a);
+        Set<String> tb = trigrams(b);
+        if (ta.isEmpty() || tb.isEmpty()) return 0d;
+        int common = 0;
+        for (String g : ta) if (tb.contains(g)) common++;
+        return (double) common / (ta.size() + tb.size() - common);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.repository.ProductRepository;
+import com.example.foodapp.repository.ProductVariantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory on-hand stock per product and per variant, mirroring the stock columns.
+ *
+ * Reads are a map lookup plus {@link LongAdder#sum()}, so hot SKUs never wait on the database
+ * or on each other. Committed decrements are applied as deltas ({@link StockTakenEvent});
+ * admin edits reload the product; a periodic reconcile overwrites everything from the
+ * database to repair any drift (e.g. a delta racing a reload).
+ */
+@Component
+public class StockCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(StockCounters.class);
+
+    private final ProductRepository productRepo;
+    private final ProductVariantRepository variantRepo;
+
+    private final Map<Long, LongAdder> products = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> variants = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public StockCounters(ProductRepository productRepo, ProductVariantRepository variantRepo) {
+        this.productRepo = productRepo;
+        this.variantRepo = variantRepo;
+    }
+
+    /** On-hand stock for a product, or for one of its variants when {@code variantId} is set. */
+    public int onHand(Long productId, Long variantId) {
+        if (!loaded) reconcile();
+        LongAdder a = variantId != null ? variants.get(variantId) : products.get(productId);
+        return a == null ? 0 : (int) Math.max(0, a.sum());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.reconcile-ms:300000}",
+            initialDelayString = "${app.stock.reconcile-ms:300000}")
+    public synchronized void reconcile() {
+        try {
+            load(products, productRepo.stockLevels(), true);
+            load(variants, variantRepo.stockLevels(), true);
+            loaded = true;
+        } catch (RuntimeException e) {
+            log.warn("Stock counter reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockTaken(StockTakenEvent e) {
+        for (Map.Entry<StockKey, Integer> en : e.taken().entrySet()) {
+            StockKey sku = en.getKey();
+            LongAdder a = sku.variantId() != null ? variants.get(sku.variantId()) : products.get(sku.productId());
+            if (a != null) a.add(-en.getValue());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        if (!loaded || e.productId() == null) return;
+        try {
+            switch (e.kind()) {
+                case PRODUCT_SAVED -> {
+                    set(products, e.productId(), productRepo.stockOf(e.productId()));
+                    load(variants, variantRepo.stockLevelsOfProduct(e.productId()), false);
+                }
+                case PRODUCT_DELETED -> products.remove(e.productId());
+                default -> { /* decrements arrive as StockTakenEvent */ }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Stock counter refresh failed for product #{}: {}", e.productId(), ex.getMessage());
+        }
+    }
+
+    private static void load(Map<Long, LongAdder> target, List<Object[]> rows, boolean replace) {
+        Map<Long, Integer> fresh = new HashMap<>();
+        for (Object[] r : rows) fresh.put((Long) r[0], ((Number) r[1]).intValue());
+        if (replace) target.keySet().retainAll(fresh.keySet());
+        fresh.forEach((id, stock) -> set(target, id, stock));
+    }
+
+    private static void set(Map<Long, LongAdder> target, Long id, Integer stock) {
+        if (id == null) return;
+        LongAdder a = target.computeIfAbsent(id, k -> new LongAdder());
+        // not atomic with concurrent deltas; the next reconcile corrects any loss
+        a.add((stock == null ? 0 : stock) - a.sum());
+    }
+}
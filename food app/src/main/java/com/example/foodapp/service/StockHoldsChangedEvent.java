@@ -0,0 +1,11 @@
+package com.example.foodapp.service;
+
+import java.util.Set;
+
+/** Checkout holds changed for these products; {@code productIds == null} means "reload all". */
+public record StockHoldsChangedEvent(Set<Long> productIds) {
+
+    public static StockHoldsChangedEvent all() {
+        return new StockHoldsChangedEvent(null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.foodapp.service;
+
+import java.util.Comparator;
+
+/** A sellable unit: a product, or one variant of it when {@code variantId} is set. */
+public record StockKey(Long productId, Long variantId) implements Comparable<StockKey> {
+
+    private static final Comparator<StockKey> ORDER = Comparator
+            .comparing(StockKey::productId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(StockKey::variantId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public static StockKey of(Long productId, Long variantId) {
+        return new StockKey(productId, variantId);
+    }
+
+    @Override
+    public int compareTo(StockKey o) {
+        return ORDER.compare(this, o);
+    }
+}
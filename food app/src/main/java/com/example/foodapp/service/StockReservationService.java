@@ -0,0 +1,282 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Order;
+import com.example.foodapp.model.StockReservation;
+import com.example.foodapp.model.StockReservation.Status;
+import com.example.foodapp.repository.OrderRepository;
+import com.example.foodapp.repository.ProductRepository;
+import com.example.foodapp.repository.ProductVariantRepository;
+import com.example.foodapp.repository.StockReservationRepository;
+import com.example.foodapp.util.CartItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checkout holds with a TTL.
+ *
+ * Placing an order reserves its lines (HELD) instead of taking stock; payment commits them
+ * (stock is decremented then), and cancellation or expiry releases them. Available-to-sell is
+ * stock minus active holds, read from {@link StockCounters} and an in-memory held-per-SKU map
+ * that is reloaded for the touched products after every change commits.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository repo;
+    private final OrderRepository orderRepo;
+    private final ProductRepository productRepo;
+    private final ProductVariantRepository variantRepo;
+    private final InventoryService inventory;
+    private final StockCounters counters;
+    private final ApplicationEventPublisher events;
+
+    private final Map<StockKey, Integer> held = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${app.reservations.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    public StockReservationService(StockReservationRepository repo,
+                                   OrderRepository orderRepo,
+                                   ProductRepository productRepo,
+                                   ProductVariantRepository variantRepo,
+                                   InventoryService inventory,
+                                   StockCounters counters,
+                                   ApplicationEventPublisher events) {
+        this.repo = repo;
+        this.orderRepo = orderRepo;
+        this.productRepo = productRepo;
+        this.variantRepo = variantRepo;
+        this.inventory = inventory;
+        this.counters = counters;
+        this.events = events;
+    }
+
+    /* =========================
+       Lifecycle
+       ========================= */
+
+    /**
+     * Holds every stocked line of a freshly placed order. SKU rows are locked in a stable order
+     * while available-to-sell is checked, so two checkouts can't both claim the last unit.
+     * Throws {@link InsufficientStockException} (nothing held) when any line is short.
+     */
+    @Transactional
+    public void reserve(Order order) {
+        if (order == null || order.getId() == null) return;
+        if (repo.existsByOrderIdAndStatus(order.getId(), Status.HELD)) return;
+
+        Map<StockKey, String> names = new HashMap<>();
+        Map<StockKey, Integer> qtyBySku = InventoryService.quantitiesOf(order, names);
+        if (qtyBySku.isEmpty()) return;
+
+        List<StockShortage> shortages = new ArrayList<>();
+        for (Map.Entry<StockKey, Integer> e : qtyBySku.entrySet()) {
+            StockKey sku = e.getKey();
+            int available = lockedStock(sku) - (int) heldInDb(sku);
+            if (available < e.getValue()) {
+                shortages.add(new StockShortage(sku, names.get(sku), e.getValue(), available));
+            }
+        }
+        if (!shortages.isEmpty()) {
+            throw new InsufficientStockException(shortages);
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservation> rows = new ArrayList<>();
+        for (Map.Entry<StockKey, Integer> e : qtyBySku.entrySet()) {
+            rows.add(new StockReservation(order.getId(), e.getKey().productId(), e.getKey().variantId(),
+                    e.getValue(), Status.HELD, expiresAt));
+        }
+        repo.saveAll(rows);
+        events.publishEvent(new StockHoldsChangedEvent(productIdsOf(qtyBySku)));
+    }
+
+    /**
+     * Payment taken: decrement stock and mark the holds committed. Safe to call more than once
+     * (payment confirm + webhook): the order row is locked first and the HELD -> COMMITTED move
+     * is the claim, so only one caller decrements. If the holds already expired the stock is
+     * still taken, best effort; a short SKU is logged rather than failing a paid order. Orders
+     * placed before holds existed had their stock taken at checkout, so they are only recorded.
+     */
+    @Transactional
+    public void commit(Order order) {
+        if (order == null || order.getId() == null) return;
+        orderRepo.lockById(order.getId());
+        if (repo.existsByOrderIdAndStatus(order.getId(), Status.COMMITTED)) return;
+
+        Map<StockKey, String> names = new HashMap<>();
+        Map<StockKey, Integer> qtyBySku = InventoryService.quantitiesOf(order, names);
+        if (qtyBySku.isEmpty()) return;
+
+        boolean claimed = repo.moveOrder(order.getId(), Status.HELD, Status.COMMITTED) > 0;
+        boolean legacy = !claimed && !repo.existsByOrderId(order.getId());
+
+        if (!legacy) {
+            List<StockShortage> shortages = inventory.takeStock(qtyBySku, names);
+            if (!shortages.isEmpty()) {
+                log.warn("Order #{} paid with short stock: {}", order.getId(), shortages);
+            }
+        }
+
+        if (!claimed) {
+            // hold expired, or order predates holds: record what the order took
+            List<StockReservation> rows = new ArrayList<>();
+            for (Map.Entry<StockKey, Integer> e : qtyBySku.entrySet()) {
+                rows.add(new StockReservation(order.getId(), e.getKey().productId(), e.getKey().variantId(),
+                        e.getValue(), Status.COMMITTED, null));
+            }
+            repo.saveAll(rows);
+        }
+
+        events.publishEvent(new StockHoldsChangedEvent(productIdsOf(qtyBySku)));
+        if (!legacy) events.publishEvent(CatalogChangedEvent.stock("order paid #" + order.getId()));
+    }
+
+    /** Order cancelled before payment: its holds stop counting. */
+    @Transactional
+    public void release(Long orderId) {
+        if (orderId == null) return;
+        if (repo.moveOrder(orderId, Status.HELD, Status.RELEASED) > 0) {
+            events.publishEvent(new StockHoldsChangedEvent(new HashSet<>(repo.productIdsOfOrder(orderId))));
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.reservations.sweep-ms:60000}")
+    public void releaseExpired() {
+        int n = repo.releaseExpired(LocalDateTime.now());
+        if (n > 0) {
+            log.info("Released {} expired stock holds", n);
+            events.publishEvent(StockHoldsChangedEvent.all());
+        }
+    }
+
+    /* =========================
+       Available-to-sell
+       ========================= */
+
+    public int availableToSell(Long productId, Long variantId) {
+        StockKey sku = StockKey.of(productId, variantId);
+        return Math.max(0, counters.onHand(productId, variantId) - heldNow(sku));
+    }
+
+    /** productId -> available-to-sell for the base product. */
+    public Map<Long, Integer> availableForProducts(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return Collections.emptyMap();
+        Map<Long, Integer> out = new HashMap<>();
+        for (Long id : productIds) {
+            if (id != null) out.put(id, availableToSell(id, null));
+        }
+        return out;
+    }
+
+    /** Batch available-to-sell keyed by (productId, variantId); one in-memory lookup per SKU. */
+    public Map<StockKey, Integer> availableToSell(Collection<StockKey> skus) {
+        if (skus == null || skus.isEmpty()) return Collections.emptyMap();
+        Map<StockKey, Integer> out = new HashMap<>();
+        for (StockKey sku : skus) {
+            if (sku != null) out.put(sku, availableToSell(sku.productId(), sku.variantId()));
+        }
+        return out;
+    }
+
+    /** Lines asking for more than is available to sell; empty when the cart can be placed. */
+    public List<StockShortage> shortages(Map<StockKey, Integer> qtyBySku, Map<StockKey, String> names) {
+        if (qtyBySku == null || qtyBySku.isEmpty()) return List.of();
+        Map<StockKey, Integer> available = availableToSell(qtyBySku.keySet());
+        List<StockShortage> out = new ArrayList<>();
+        for (Map.Entry<StockKey, Integer> e : qtyBySku.entrySet()) {
+            int a = available.getOrDefault(e.getKey(), 0);
+            if (a < e.getValue()) out.add(new StockShortage(e.getKey(), names.get(e.getKey()), e.getValue(), a));
+        }
+        return out;
+    }
+
+    public List<StockShortage> shortagesForCart(Collection<CartItem> items) {
+        Map<StockKey, String> names = new HashMap<>();
+        return shortages(InventoryService.quantitiesOfCart(items, names), names);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reloadAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHoldsChanged(StockHoldsChangedEvent e) {
+        try {
+            if (e.productIds() == null || !loaded) reloadAll();
+            else reload(e.productIds());
+        } catch (RuntimeException ex) {
+            // counter is advisory; reserve() always checks the database
+            log.warn("Reloading stock holds failed: {}", ex.getMessage());
+            loaded = false;
+        }
+    }
+
+    /* =========================
+       Helpers
+       ========================= */
+
+    private int heldNow(StockKey sku) {
+        if (!loaded) reloadAll();
+        return held.getOrDefault(sku, 0);
+    }
+
+    private synchronized void reloadAll() {
+        Map<StockKey, Integer> fresh = toMap(repo.heldBySku());
+        held.keySet().retainAll(fresh.keySet());
+        held.putAll(fresh);
+        loaded = true;
+    }
+
+    private synchronized void reload(Set<Long> productIds) {
+        if (productIds.isEmpty()) return;
+        Map<StockKey, Integer> fresh = toMap(repo.heldBySku(productIds));
+        held.keySet().removeIf(k -> productIds.contains(k.productId()) && !fresh.containsKey(k));
+        held.putAll(fresh);
+    }
+
+    private static Map<StockKey, Integer> toMap(List<Object[]> rows) {
+        Map<StockKey, Integer> out = new HashMap<>();
+        for (Object[] r : rows) {
+            out.put(StockKey.of((Long) r[0], (Long) r[1]), ((Number) r[2]).intValue());
+        }
+        return out;
+    }
+
+    private int lockedStock(StockKey sku) {
+        return sku.variantId() != null
+                ? variantRepo.lockById(sku.variantId()).map(v -> safe(v.getStock())).orElse(0)
+                : productRepo.lockById(sku.productId()).map(p -> safe(p.getStock())).orElse(0);
+    }
+
+    private long heldInDb(StockKey sku) {
+        return sku.variantId() != null
+                ? repo.heldForVariant(sku.variantId())
+                : repo.heldForProduct(sku.productId());
+    }
+
+    private static Set<Long> productIdsOf(Map<StockKey, Integer> qtyBySku) {
+        Set<Long> ids = new HashSet<>();
+        for (StockKey k : qtyBySku.keySet()) ids.add(k.productId());
+        return ids;
+    }
+
+    private static int safe(Integer n) { return n == null ? 0 : n; }
+}
@@ -0,0 +1,11 @@
+package com.example.foodapp.service;
+
+/** One order line that could not be fulfilled from stock. */
+public record StockShortage(StockKey sku, String productName, int requested, int available) {
+
+    @Override
+    public String toString() {
+        return (productName == null ? "item #" + sku.productId() : productName)
+                + " (requested " + requested + ", available " + Math.max(0, available) + ")";
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.foodapp.service;
+
+import java.util.Map;
+
+/** Stock was decremented for these SKUs (quantity taken per SKU); applied to the counters after commit. */
+public record StockTakenEvent(Map<StockKey, Integer> taken) {
+}
@@ -0,0 +1,192 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Product;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index for search-box suggestions.
+ *
+ * Each product is indexed by the normalised words of its name and category, plus their
+ * synonyms (haldi/turmeric, jeera/cumin, ...). Postings are keyed by padded trigrams, so a
+ * query word only has to score the products sharing at least one trigram with it.
+ * A product save/delete re-indexes just that product; category changes rebuild everything
+ * into a fresh index that replaces the live one in a single swap, so readers never see it half built.
+ */
+@Component
+public class SuggestIndex {
+
+    private static final double MIN_SCORE = 0.35;
+
+    private static final Map<String, Set<String>> SYNONYMS = synonyms(List.of(
+            List.of("haldi", "turmeric", "manjal"),
+            List.of("jeera", "jira", "cumin"),
+            List.of("dhania", "dhaniya", "coriander", "cilantro"),
+            List.of("mirch", "mirchi", "chilli", "chili", "chile"),
+            List.of("elaichi", "cardamom"),
+            List.of("laung", "clove", "cloves"),
+            List.of("dalchini", "cinnamon"),
+            List.of("methi", "fenugreek"),
+            List.of("hing", "asafoetida", "asafetida"),
+            List.of("saunf", "fennel"),
+            List.of("rai", "sarson", "mustard"),
+            List.of("ajwain", "carom"),
+            List.of("kalonji", "nigella"),
+            List.of("kesar", "saffron"),
+            List.of("adrak", "sonth", "ginger"),
+            List.of("lehsun", "garlic"),
+            List.of("amchur", "amchoor", "mango"),
+            List.of("jaiphal", "nutmeg"),
+            List.of("javitri", "mace")
+    ));
+
+    private record Doc(String name, Set<String> terms) {}
+
+    private record Index(Map<Long, Doc> docs, Map<String, Set<Long>> postings) {
+        Index() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private final CatalogCache catalog;
+    private volatile Index index = new Index();
+    private volatile boolean built;
+
+    public SuggestIndex(CatalogCache catalog) {
+        this.catalog = catalog;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        rebuildAll();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent e) {
+        if (!built) return; // first use builds from the (already rebuilt) snapshot
+        switch (e.kind()) {
+            case PRODUCT_SAVED -> index(e.productId(), catalog.current().product(e.productId()));
+            case PRODUCT_DELETED -> index(e.productId(), null);
+            case CATEGORY -> rebuildAll();
+            case STOCK -> { /* names unchanged */ }
+        }
+    }
+
+    /** Product ids best matching the typed text, best first. */
+    public List<Long> suggest(String q, int limit) {
+        if (!built) rebuildAll();
+        List<String> tokens = SearchText.tokens(q);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Index idx = index;
+        Map<Long, Double> scores = null;
+        for (String t : tokens) {
+            Map<Long, Double> hits = new HashMap<>();
+            for (Long id : candidates(idx, t)) {
+                Doc d = idx.docs().get(id);
+                if (d == null) continue;
+                double s = bestMatch(d.terms(), t);
+                if (s >= MIN_SCORE) hits.put(id, s);
+            }
+            if (scores == null) {
+                scores = hits;
+            } else {
+                // every typed word has to match something (AND)
+                scores.keySet().retainAll(hits.keySet());
+                for (Map.Entry<Long, Double> en : scores.entrySet()) en.setValue(en.getValue() + hits.get(en.getKey()));
+            }
+            if (scores.isEmpty()) return List.of();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(en -> nameOf(idx, en.getKey()), String.CASE_INSENSITIVE_ORDER));
+        List<Long> out = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) out.add(ranked.get(i).getKey());
+        return out;
+    }
+
+    public synchronized void rebuildAll() {
+        Index fresh = new Index();
+        for (Product p : catalog.current().products()) {
+            add(fresh, p);
+        }
+        index = fresh;
+        built = true;
+    }
+
+    private synchronized void index(Long productId, Product p) {
+        if (productId == null) return;
+        Index idx = index;
+        Doc old = idx.docs().remove(productId);
+        if (old != null) {
+            for (String term : old.terms()) {
+                for (String g : SearchText.trigrams(term)) {
+                    Set<Long> ids = idx.postings().get(g);
+                    if (ids != null) ids.remove(productId);
+                }
+            }
+        }
+        if (p != null) add(idx, p);
+    }
+
+    private static void add(Index idx, Product p) {
+        if (p.getId() == null) return;
+        Set<String> terms = new HashSet<>(SearchText.tokens(p.getName()));
+        if (p.getCategory() != null) terms.addAll(SearchText.tokens(p.getCategory().getName()));
+        for (String t : List.copyOf(terms)) {
+            terms.addAll(SYNONYMS.getOrDefault(t, Set.of()));
+        }
+
+        idx.docs().put(p.getId(), new Doc(p.getName() == null ? "" : p.getName(), Set.copyOf(terms)));
+        for (String term : terms) {
+            for (String g : SearchText.trigrams(term)) {
+                idx.postings().computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).add(p.getId());
+            }
+        }
+    }
+
+    private static Set<Long> candidates(Index idx, String token) {
+        Set<Long> out = new HashSet<>();
+        for (String g : SearchText.trigrams(token)) {
+            Set<Long> ids = idx.postings().get(g);
+            if (ids != null) out.addAll(ids);
+        }
+        return out;
+    }
+
+    /** 1.0 for a prefix hit, otherwise trigram similarity against the word or its same-length prefix (typos). */
+    private static double bestMatch(Set<String> terms, String token) {
+        double best = 0;
+        for (String term : terms) {
+            if (term.startsWith(token)) return 1.0;
+            double s = SearchText.similarity(term, token);
+            if (term.length() > token.length()) {
+                s = Math.max(s, SearchText.similarity(term.substring(0, token.length()), token));
+            }
+            best = Math.max(best, s);
+        }
+        return best;
+    }
+
+    private static String nameOf(Index idx, Long id) {
+        Doc d = idx.docs().get(id);
+        return d == null ? "" : d.name();
+    }
+
+    private static Map<String, Set<String>> synonyms(List<List<String>> groups) {
+        Map<String, Set<String>> out = new HashMap<>();
+        for (List<String> g : groups) {
+            for (String w : g) out.put(w, Set.copyOf(g));
+        }
+        return Map.copyOf(out);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.foodapp.service;
+
+import com.example.foodapp.model.Product;
+import com.example.foodapp.model.SalesBucket;
+import com.example.foodapp.repository.AnalyticsRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Best-seller rankings by units sold per product id (paid orders only).
+ *
+ * Windows up to {@link SalesWindow#MAX_DAYS} days are answered from the in-memory
+ * {@link SalesWindow} and hydrated from the catalog snapshot, so a read runs no query.
+ * Longer windows go to the database with a single aggregate query.
+ */
+@Service
+public class TopSellersService {
+
+    /** Windows with maintained running totals (others are summed on demand). */
+    public static final List<Integer> WINDOWS = List.of(7, 30, 90);
+
+    public record Ranked(Long productId, long quantity) { }
+
+    private final AnalyticsRepository analytics;
+    private final CatalogCache catalog;
+    private final SalesWindow window;
+
+    public TopSellersService(AnalyticsRepository analytics, CatalogCache catalog, SalesWindow window) {
+        this.analytics = analytics;
+        this.catalog = catalog;
+        this.window = window;
+    }
+
+    /** Top {@code limit} products sold in the last {@code days} days, optionally within one category. */
+    public List<Product> top(int limit, int days, Long categoryId) {
+        CatalogSnapshot snap = catalog.current();
+        List<Product> out = new ArrayList<>(limit);
+        for (Ranked r : ranking(limit, days, categoryId)) {
+            Product p = snap.product(r.productId());
+            if (p != null) out.add(p);
+        }
+        return out;
+    }
+
+    public List<Ranked> ranking(int limit, int days, Long categoryId) {
+        int n = Math.max(1, limit);
+        if (days > SalesWindow.MAX_DAYS) return query(n, days, categoryId);
+
+        // deleted products are skipped here too, so the caller still gets up to n live ones
+        CatalogSnapshot snap = catalog.current();
+        List<Ranked> out = new ArrayList<>(n);
+        for (Ranked r : window.top(days, 0)) {
+            Product p = snap.product(r.productId());
+            if (p == null) continue;
+            if (categoryId != null && (p.getCategory() == null || !categoryId.equals(p.getCategory().getId()))) continue;
+            out.add(r);
+            if (out.size() == n) break;
+        }
+        return out;
+    }
+
+    private List<Ranked> query(int limit, int days, Long categoryId) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+        List<Ranked> out = new ArrayList<>();
+        for (Object[] row : analytics.unitsSoldByProduct(
+                SalesBucket.PAID.statuses(), since, categoryId, PageRequest.of(0, limit))) {
+            out.add(new Ranked(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+        return out;
+    }
+}
@@ -8,8 +8,10 @@ import java.util.List;
 // UserOrderService.java (interface)
 public interface UserOrderService {
     List<Order> findByUser(Long userId);
-    List<Order> filterUserOrders(List<Order> orders, String q, LocalDate from, LocalDate to);
+
+    /** One keyset page of the user's orders (newest first) with items loaded; filters run in the DB. */
+    OrderPage findPage(Long userId, String q, LocalDate from, LocalDate to, String after, int size);
+
     Order findById(Long id);
 
 }
-
@@ -2,11 +2,16 @@ package com.example.foodapp.service;
 
 import com.example.foodapp.model.Order;
 import com.example.foodapp.repository.OrderRepository;
+import com.example.foodapp.repository.OrderSpecs;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -30,28 +35,32 @@ public class UserOrderServiceImpl implements UserOrderService {
     }
 
     @Override
-    public List<Order> filterUserOrders(List<Order> orders, String q, LocalDate from, LocalDate to) {
-        return orders.stream().filter(o -> {
-            boolean ok = true;
-            if (q != null && !q.isBlank()) {
-                String needle = q.toLowerCase();
-                boolean match =
-                        (o.getCustomerName() != null && o.getCustomerName().toLowerCase().contains(needle)) ||
-                                (o.getAddress() != null && o.getAddress().toLowerCase().contains(needle)) ||
-                                // Filter by confirmation number as well
-                                (o.getConfirmationNumber() != null && o.getConfirmationNumber().toLowerCase().contains(needle)) ||
-                                (o.getItems() != null && o.getItems().stream().anyMatch(
-                                        it -> it.getProductName() != null && it.getProductName().toLowerCase().contains(needle)
-                                ));
-                ok &= match;
-            }
-            if (from != null) {
-                ok &= (o.getCreatedAt() != null && !o.getCreatedAt().toLocalDate().isBefore(from));
-            }
-            if (to != null) {
-                ok &= (o.getCreatedAt() != null && !o.getCreatedAt().toLocalDate().isAfter(to));
-            }
-            return ok;
-        }).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public OrderPage findPage(Long userId, String q, LocalDate from, LocalDate to, String after, int size) {
+        int limit = Math.max(1, Math.min(size, 100));
+        OrderPage.Cursor cursor = OrderPage.parse(after);
+
+        Specification<Order> spec = Specification.where(OrderSpecs.forUser(userId))
+                .and(OrderSpecs.matchesOrConfirmation(q))
+                .and(OrderSpecs.createdFrom(from))
+                .and(OrderSpecs.createdTo(to));
+        if (cursor != null) {
+            spec = spec.and(OrderSpecs.after(cursor.createdAt(), cursor.id(), false));
+        }
+
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        List<Order> rows = repo.findBy(spec, query -> query.sortBy(newestFirst).limit(limit + 1).all());
+
+        boolean more = rows.size() > limit;
+        List<Order> page = more ? rows.subList(0, limit) : rows;
+        if (page.isEmpty()) return new OrderPage(List.of(), null);
+
+        // second query loads all items for the page at once; keep the keyset order
+        Map<Long, Order> withItems = repo.fetchWithItems(page.stream().map(Order::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity(), (a, b) -> a));
+        List<Order> out = page.stream().map(o -> withItems.getOrDefault(o.getId(), o)).toList();
+
+        return new OrderPage(out, more ? OrderPage.cursorOf(out.get(out.size() - 1)) : null);
     }
 }
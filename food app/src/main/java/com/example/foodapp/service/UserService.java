@@ -9,9 +9,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.time.LocalDateTime;
 import java.util.Locale;
@@ -25,17 +22,20 @@ public class UserService {
     private  final OrderRepository orderRepo;
     private final PasswordEncoder encoder;
     private final EmailServiceWelcome emailService;
+    private final CurrentUserService currentUsers;
 
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
 
 
-    public UserService(UserRepository repo, OrderRepository orderRepo, PasswordEncoder encoder,  EmailServiceWelcome emailService) {
+    public UserService(UserRepository repo, OrderRepository orderRepo, PasswordEncoder encoder,  EmailServiceWelcome emailService,
+                       CurrentUserService currentUsers) {
         this.repo = repo;
         this.orderRepo = orderRepo;
         this.encoder = encoder;
         this.emailService = emailService;
+        this.currentUsers = currentUsers;
     }
     public Optional<User> findByUsernameOrEmail(String value) {
         return repo.findByUsernameIgnoreCaseOrEmailIgnoreCase(value, value);
@@ -45,7 +45,7 @@ public class UserService {
     // Basic registration with username/password
     public User register(String username, String rawPassword) {
         User u = new User(username, encoder.encode(rawPassword), "ROLE_USER");
-        return repo.save(u);
+        return save(u);
     }
 
     // Extended registration with extra fields
@@ -62,13 +62,13 @@ public class UserService {
 
 
 
-        return repo.save(u);
+        return save(u);
     }
 
     // Admin registration
     public User registerAdmin(String username, String rawPassword) {
         User u = new User(username, encoder.encode(rawPassword), "ROLE_ADMIN");
-        return repo.save(u);
+        return save(u);
     }
 
     public Optional<User> findByUsername(String u) {
@@ -80,7 +80,12 @@ public class UserService {
     }
 
     public Optional<User> findById(Long id) { return repo.findById(id); }
-    public User save(User u) { return repo.save(u); }
+    /** Saves and drops any cached snapshot of the user (name/e-mail may have changed). */
+    public User save(User u) {
+        User saved = repo.save(u);
+        currentUsers.evict(saved);
+        return saved;
+    }
 
     @Transactional
     public boolean deleteUser(Long userId) {
@@ -91,21 +96,15 @@ public class UserService {
             orderRepo.deleteAllByUserId(userId);
             // Delete the user themselves.
             repo.deleteById(userId);
+            currentUsers.evict(userId);
             return true;
         }
         return false;
     }
 
+    /** Signed-in user (lazy reference, see {@link CurrentUserService}), or null for guests. */
     public User getCurrentUser(HttpSession session) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-
-        if (auth == null || !auth.isAuthenticated() || auth.getPrincipal().equals("anonymousUser")) {
-            return null; // no logged in user
-        }
-
-        String username = auth.getName();
-        return repo.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return currentUsers.currentUser(session);
     }
 
 
@@ -212,7 +211,7 @@ public class UserService {
                 if (u.getDisplayName() == null || u.getDisplayName().isBlank()) u.setDisplayName(displayName);
                 if (u.getProvider() == null || u.getProvider().isBlank()) u.setProvider(provider);
                 if (u.getEnabled() == null) u.setEnabled(true);
-                return repo.save(u);
+                return save(u);
             }
         }
 
@@ -233,7 +232,7 @@ public class UserService {
         // Random internal password (not used for OAuth logins, but column is not-null)
         u.setPassword(encoder.encode(UUID.randomUUID().toString()));
 
-        return repo.save(u);
+        return save(u);
     }
 
     private String buildUniqueUsername(String base) {
@@ -7,6 +7,7 @@ import org.hibernate.annotations.Where;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,7 +16,7 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "cart")
+@Table(name = "cart", indexes = @Index(name = "idx_cart_revised_at", columnList = "revisedAt"))
 public class Cart {
 
 
@@ -47,6 +48,12 @@ public class Cart {
     @Column(nullable = false, length = 20)
     private Status status = Status.OPEN;
 
+    // bumped by every CartStore flush; lets each node tell its copy is stale
+    private Long revision;
+
+    // when the revision last moved; nodes poll this to drop carts another node wrote
+    private LocalDateTime revisedAt;
+
 
 
 
@@ -4,6 +4,7 @@ package com.example.foodapp.util;
 import com.example.foodapp.model.Coupon;
 import com.example.foodapp.model.OrderItem;
 import com.example.foodapp.model.Product;
+import com.example.foodapp.service.StockKey;
 import jakarta.servlet.http.HttpSession;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,13 +15,19 @@ import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.function.Function;
 
 @Component
 @Scope(value = WebApplicationContext.SCOPE_SESSION, proxyMode = ScopedProxyMode.TARGET_CLASS)
-public class SessionCart {
+public class SessionCart implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
 
     public static final BigDecimal TAX_RATE = new BigDecimal("0.08"); // 8%
 
@@ -52,8 +59,12 @@ public class SessionCart {
 
     @Getter
     @Setter
-    public static class Item {
+    public static class Item implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
         public Long productId;
+        public Long variantId;
         public String name;
         public BigDecimal unitPrice = BigDecimal.ZERO;
         public int qty = 1;
@@ -70,6 +81,16 @@ public class SessionCart {
     private String appliedCouponCode;
     private transient Coupon appliedCoupon;
 
+    /**
+     * The session store only keeps {@link #appliedCouponCode}; the Coupon is looked up again by
+     * code the first time it's needed after the cart is read back. Wired by CouponService.
+     */
+    private static volatile Function<String, Coupon> couponLookup = code -> null;
+
+    public static void useCouponLookup(Function<String, Coupon> lookup) {
+        couponLookup = lookup;
+    }
+
     @Getter private BigDecimal subtotal   = BigDecimal.ZERO;
     @Getter private BigDecimal discount   = BigDecimal.ZERO;
     @Getter private BigDecimal tax        = BigDecimal.ZERO;
@@ -88,8 +109,15 @@ public class SessionCart {
                 : coupon.getCode() + " (" + coupon.getType() + " " + coupon.getValue() + ")"));
     }
 
-    /** Actual Coupon object, used when saving CouponRedemption. */
+    /** Actual Coupon object, used when saving CouponRedemption; re-resolved from the code after deserialization. */
     public Coupon getAppliedCoupon() {
+        if (appliedCoupon == null && appliedCouponCode != null) {
+            appliedCoupon = couponLookup.apply(appliedCouponCode);
+            if (appliedCoupon == null) {
+                log("[CART] coupon " + appliedCouponCode + " no longer exists, dropping it");
+                appliedCouponCode = null;
+            }
+        }
         return appliedCoupon;
     }
 
@@ -105,6 +133,7 @@ public class SessionCart {
             for (OrderItem oi : orderItems) {
                 Item it = new Item();
                 it.productId = oi.getProductId();
+                it.variantId = oi.getVariantId();
                 it.name      = oi.getProductName();
 
                 int q = (oi.getQuantity() != null ? oi.getQuantity() : 1);
@@ -236,9 +265,10 @@ public class SessionCart {
 
         BigDecimal d = BigDecimal.ZERO;
 
-        if (appliedCoupon != null) {
-            BigDecimal val = safeBD(appliedCoupon.getValue());
-            switch (appliedCoupon.getType()) {
+        Coupon coupon = getAppliedCoupon();
+        if (coupon != null) {
+            BigDecimal val = safeBD(coupon.getValue());
+            switch (coupon.getType()) {
                 case PERCENT -> d = subtotal.multiply(
                         val.divide(new BigDecimal("100"), 6, RoundingMode.HALF_UP));
                 case AMOUNT -> d = val;
@@ -271,6 +301,7 @@ public class SessionCart {
 
                 Item it = new Item();
                 it.productId = c.getProductId();
+                it.variantId = c.getVariantId();
                 it.name      = (c.getName() == null ? "" : c.getName().trim());
                 it.unitPrice = unit;
                 it.qty       = qty;
@@ -285,6 +316,18 @@ public class SessionCart {
        API convenience
        ========================= */
 
+    /** Quantity per (productId, variantId) for stock validation; gift cards (negative ids) are skipped. */
+    public Map<StockKey, Integer> quantitiesBySku(Map<StockKey, String> names) {
+        Map<StockKey, Integer> out = new TreeMap<>();
+        for (Item it : items) {
+            if (it.productId == null || it.productId <= 0 || it.qty <= 0) continue;
+            StockKey sku = StockKey.of(it.productId, it.variantId);
+            out.merge(sku, it.qty, Integer::sum);
+            names.putIfAbsent(sku, it.name);
+        }
+        return out;
+    }
+
     public Map<String, Object> asTotalsMap() {
         Map<String, Object> m = new LinkedHashMap<>();
         m.put("subtotal",   subtotal);
@@ -0,0 +1,16 @@
+package com.example.foodapp.web;
+
+import com.example.foodapp.model.Admin;
+
+import java.io.Serializable;
+
+/** Logged-in admin as kept in the HTTP session ("ADMIN_USER"); never the entity with its password hash. */
+public record SessionAdmin(Long id, String username) implements Serializable {
+
+    public static SessionAdmin of(Admin a) {
+        return new SessionAdmin(a.getId(), a.getUsername());
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+}
@@ -1,17 +1,28 @@
 // src/main/java/com/example/foodapp/security/SessionUser.java
 package com.example.foodapp.web;
 
-import lombok.Getter;
-import lombok.Setter;
+import com.example.foodapp.model.User;
 
 import java.io.Serializable;
 
-
-
-
+/**
+ * The only user data kept in the HTTP session ("USER"). Controllers load the full
+ * {@link User} by id when they need more; templates read {@code session.USER.firstName}.
+ */
 public record SessionUser(
         Long id,
         String firstName,
         String lastName,
         String email
-) implements Serializable {}
+) implements Serializable {
+
+    public static SessionUser of(User u) {
+        return new SessionUser(u.getId(), u.getFirstName(), u.getLastName(), u.getEmail());
+    }
+
+    // bean-style accessors for Thymeleaf/SpEL
+    public Long getId() { return id; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getEmail() { return email; }
+}
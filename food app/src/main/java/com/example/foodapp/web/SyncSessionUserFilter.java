@@ -1,25 +1,27 @@
 package com.example.foodapp.web;
 
-import com.example.foodapp.model.User;
-import com.example.foodapp.service.UserService;
-import com.example.foodapp.web.SessionUser;
+import com.example.foodapp.service.CurrentUserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/** Puts the {@link SessionUser} snapshot into the session after any successful auth. */
 public class SyncSessionUserFilter extends OncePerRequestFilter {
 
-    private final UserService userService;
+    private final CurrentUserService currentUsers;
 
-    public SyncSessionUserFilter(UserService userService) {
-        this.userService = userService;
+    public SyncSessionUserFilter(CurrentUserService currentUsers) {
+        this.currentUsers = currentUsers;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest req) {
+        return CurrentUserService.isStaticPath(req.getRequestURI().substring(req.getContextPath().length()));
     }
 
     @Override
@@ -28,18 +30,10 @@ public class SyncSessionUserFilter extends OncePerRequestFilter {
 
         HttpSession session = req.getSession(false);
         if (session != null && session.getAttribute("USER") == null) {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-                try {
-                    User u = userService.getCurrentUser(req.getSession(true)); // or userService.getCurrentUser()
-                    if (u != null) {
-                        session.setAttribute("USER", new SessionUser(
-                                u.getId(), u.getFirstName(), u.getLastName(), u.getEmail()
-                        ));
-                    }
-                } catch (Throwable ignore) {
-                    // don’t block the request if this fails
-                }
+            try {
+                currentUsers.snapshot(session);
+            } catch (RuntimeException ignore) {
+                // don’t block the request if this fails
             }
         }
         chain.doFilter(req, res);
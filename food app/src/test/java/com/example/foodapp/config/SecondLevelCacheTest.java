@@ -0,0 +1,151 @@
+package com.example.foodapp.config;
+
+import com.example.foodapp.model.*;
+import com.example.foodapp.repository.*;
+import com.example.foodapp.service.CouponService;
+import com.example.foodapp.service.PaymentMethodService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The hot reference-data reads stop issuing SQL once warmed: each read runs in its own
+ * session (as in a request), so anything not coming from the second-level cache shows up
+ * in Hibernate's prepared statement count.
+ *
+ * Coupon validation is fully cached only for guests. For a logged-in user the once-per-user
+ * check ({@code existsByUserAndCoupon}) deliberately stays a query, since it has to see
+ * redemptions made on other nodes; the coupon lookup itself is still served from cache.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:l2cache;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE,DAY,USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SecondLevelCacheConfig.class, CouponService.class, PaymentMethodService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SecondLevelCacheTest {
+
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired CouponService couponService;
+    @Autowired PaymentMethodService paymentMethodService;
+    @Autowired CategoryRepository categories;
+    @Autowired ProductRepository products;
+    @Autowired CouponRepository coupons;
+    @Autowired PaymentMethodRepository paymentMethods;
+    @Autowired UserRepository users;
+
+    private Statistics stats;
+    private TransactionTemplate tx;
+    private Long categoryId;
+    private Long productId;
+    private User owner;
+
+    @BeforeAll
+    void seed() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        tx = new TransactionTemplate(txManager);
+
+        Category category = new Category();
+        category.setName("Whole spices");
+        categoryId = categories.save(category).getId();
+
+        Product product = new Product();
+        product.setName("Cumin seeds");
+        product.setPrice(new BigDecimal("4.50"));
+        product.setWeight(100);
+        product.setStock(40);
+        product.setCategory(category);
+        ProductVariant large = new ProductVariant();
+        large.setWeight(500);
+        large.setPrice(new BigDecimal("18.00"));
+        large.setStock(10);
+        large.setProduct(product);
+        product.getVariants().add(large);
+        productId = products.save(product).getId();
+
+        Coupon coupon = new Coupon();
+        coupon.setCode("JEERA10");
+        coupon.setType(Coupon.Type.PERCENT);
+        coupon.setValue(BigDecimal.TEN);
+        coupons.save(coupon);
+
+        owner = new User();
+        owner.setUsername("l2-owner");
+        owner.setPassword("x");
+        owner.setEmail("l2-owner@example.com");
+        owner = users.save(owner);
+
+        PaymentMethod stripe = new PaymentMethod();
+        stripe.setUser(owner);
+        stripe.setCode("STRIPE");
+        stripe.setDisplayName("Card");
+        paymentMethods.save(stripe);
+    }
+
+    @Test
+    void couponValidationIsServedFromCache() {
+        assertWarmReadsIssueNoSql(() -> couponService.validate("JEERA10", null, new BigDecimal("25.00")));
+        assertThat(couponService.validate("JEERA10", null, new BigDecimal("25.00")).error()).isNull();
+    }
+
+    @Test
+    void loggedInCouponValidationOnlyQueriesRedemptions() {
+        couponService.validate("JEERA10", owner, new BigDecimal("25.00"));
+        long before = stats.getPrepareStatementCount();
+        for (int i = 0; i < 3; i++) {
+            assertThat(couponService.validate("JEERA10", owner, new BigDecimal("25.00")).error()).isNull();
+        }
+        assertThat(stats.getPrepareStatementCount() - before)
+                .as("one redemption check per validation, nothing else")
+                .isEqualTo(3);
+    }
+
+    @Test
+    void paymentMethodByCodeIsServedFromCache() {
+        assertWarmReadsIssueNoSql(() -> paymentMethodService.findByCode("STRIPE"));
+        assertThat(paymentMethodService.findByCode("STRIPE")).isNotNull();
+    }
+
+    @Test
+    void categoryReadIsServedFromCache() {
+        assertWarmReadsIssueNoSql(() -> categories.findById(categoryId).orElseThrow().getName());
+    }
+
+    @Test
+    void productAndVariantsAreServedFromCache() {
+        assertWarmReadsIssueNoSql(() -> tx.execute(s -> {
+            Product p = products.findById(productId).orElseThrow();
+            return p.getName() + p.getVariants().size();
+        }));
+    }
+
+    /** First call warms the regions; the next ones must not prepare a single statement. */
+    private void assertWarmReadsIssueNoSql(Supplier<?> read) {
+        read.get();
+        long before = stats.getPrepareStatementCount();
+        for (int i = 0; i < 3; i++) read.get();
+        assertThat(stats.getPrepareStatementCount() - before)
+                .as("statements prepared after warm-up")
+                .isZero();
+    }
+}
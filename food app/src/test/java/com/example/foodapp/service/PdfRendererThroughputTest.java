@@ -0,0 +1,157 @@
+package com.example.foodapp.service;
+
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of invoice-style renders: the old path ({@code withHtmlContent(html, baseUrl)},
+ * so every stylesheet and image is fetched over HTTP from the app itself) against
+ * {@link PdfRenderer}. A JDK HTTP server serving {@code classpath:static/} stands in for the app.
+ *
+ * Not part of the normal build; run with
+ * {@code mvn test -Dtest=PdfRendererThroughputTest -Dbenchmark=true}
+ * (optionally {@code -Dbenchmark.threads=8 -Dbenchmark.renders=400}).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PdfRendererThroughputTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 4);
+    private static final int RENDERS = Integer.getInteger("benchmark.renders", 200);
+    private static final int WARMUP = Math.max(THREADS, RENDERS / 5);
+
+    private HttpServer app;
+    private final AtomicInteger appRequests = new AtomicInteger();
+    private String baseUrl;
+    private String html;
+
+    @BeforeAll
+    void startApp() throws IOException {
+        app = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        app.createContext("/", exchange -> {
+            appRequests.incrementAndGet();
+            ClassPathResource r = new ClassPathResource("static" + exchange.getRequestURI().getPath());
+            if (!r.exists()) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body;
+            try (InputStream in = r.getInputStream()) {
+                body = StreamUtils.copyToByteArray(in);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        app.setExecutor(Executors.newFixedThreadPool(THREADS));
+        app.start();
+        baseUrl = "http://127.0.0.1:" + app.getAddress().getPort();
+        html = invoiceHtml();
+    }
+
+    @AfterAll
+    void stopApp() {
+        app.stop(0);
+    }
+
+    @Test
+    void pdfRendererOutrunsSelfHttpRendering() throws Exception {
+        PdfRenderer renderer = new PdfRenderer(baseUrl, THREADS, RENDERS, 32);
+        try {
+            double before = rendersPerSecond("withHtmlContent + HTTP", this::renderOverHttp);
+
+            appRequests.set(0);
+            double after = rendersPerSecond("PdfRenderer", renderer::render);
+
+            System.out.printf("PDF throughput: %.1f -> %.1f renders/s (x%.2f), %d threads%n",
+                    before, after, after / before, THREADS);
+            System.out.println("PdfRenderer stats: " + renderer.stats());
+
+            // same page, but nothing went back through the app
+            assertThat(appRequests.get()).isZero();
+            assertThat(renderer.stats().get("remoteFetches")).isEqualTo(0L);
+            assertThat(renderer.stats().get("missingResources")).isEqualTo(0L);
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    /** What InvoiceRenderer.pdf did before PdfRenderer. */
+    private byte[] renderOverHttp(String page) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.withHtmlContent(page, baseUrl);
+            builder.toStream(out);
+            builder.run();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private double rendersPerSecond(String label, Function<String, byte[]> render) throws Exception {
+        run(render, WARMUP);
+        long start = System.nanoTime();
+        run(render, RENDERS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rate = RENDERS / seconds;
+        System.out.printf("%-24s %d renders in %.2fs = %.1f/s (%d app requests)%n",
+                label, RENDERS, seconds, rate, appRequests.get());
+        return rate;
+    }
+
+    private void run(Function<String, byte[]> render, int count) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<byte[]>> done = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) done.add(callers.submit(() -> render.apply(html)));
+            for (Future<byte[]> f : done) {
+                byte[] pdf = f.get(1, TimeUnit.MINUTES);
+                assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    /** An invoice-sized page pulling the site stylesheet, logo and a few product images. */
+    private static String invoiceHtml() {
+        StringBuilder rows = new StringBuilder();
+        String[] images = {"Saffron.jpeg", "Mace.jpg", "Nutmeg.jpeg", "Star Anise.jpeg"};
+        for (int i = 0; i < 12; i++) {
+            String img = "/images/" + images[i % images.length].replace(" ", "%20");
+            rows.append("<tr><td><img src=\"").append(img).append("\" width=\"32\" height=\"32\"/></td>")
+                .append("<td>Item ").append(i + 1).append("</td><td>2</td><td>")
+                .append(4 + i).append(".50</td></tr>");
+        }
+        return "<!DOCTYPE html><html><head><meta charset=\"utf-8\"/>"
+                + "<link rel=\"stylesheet\" href=\"/css/styles.css\"/></head><body>"
+                + "<img src=\"/icons/icon-192.png\" width=\"48\" height=\"48\"/>"
+                + "<h1>Invoice #BENCH-0001</h1><table>" + rows + "</table>"
+                + "<p>Total: 123.00</p></body></html>";
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.foodapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Upload paths the PDF renderer reads from disk must stay inside uploads/. */
+class PdfRendererUploadPathTest {
+
+    private static final Path UPLOADS = Paths.get("uploads").toAbsolutePath().normalize();
+
+    @Test
+    void normalUploadResolvesInsideUploads() {
+        assertThat(PdfRenderer.uploadPath("/uploads/products/saffron.jpeg"))
+                .isEqualTo(UPLOADS.resolve("products").resolve("saffron.jpeg"));
+    }
+
+    @Test
+    void absolutePathAfterThePrefixIsRejected() {
+        assertThat(PdfRenderer.uploadPath("/uploads//etc/passwd")).isNull();
+    }
+
+    @Test
+    void parentSegmentsAreRejected() {
+        assertThat(PdfRenderer.uploadPath("/uploads/../x")).isNull();
+        assertThat(PdfRenderer.uploadPath("/uploads/a/../../x")).isNull();
+    }
+
+    @Test
+    void parentSegmentsThatStayInsideAreAllowed() {
+        assertThat(PdfRenderer.uploadPath("/uploads/a/../b.png")).isEqualTo(UPLOADS.resolve("b.png"));
+    }
+
+    @Test
+    void theDirectoryItselfIsNotAFile() {
+        assertThat(PdfRenderer.uploadPath("/uploads/")).isNull();
+        assertThat(PdfRenderer.uploadPath("/uploads/.")).isNull();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.foodapp.util;
+
+import com.example.foodapp.config.CompactSessionSerializer;
+import com.example.foodapp.model.Coupon;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** A cart written to the session store and read back keeps its coupon and discount. */
+class SessionCartTest {
+
+    private final CompactSessionSerializer serializer = new CompactSessionSerializer(getClass().getClassLoader());
+
+    @AfterEach
+    void unwire() {
+        SessionCart.useCouponLookup(code -> null);
+    }
+
+    @Test
+    void couponSurvivesTheSessionStore() {
+        Coupon coupon = coupon("JEERA10", Coupon.Type.PERCENT, "10");
+        SessionCart.useCouponLookup(code -> code.equalsIgnoreCase("JEERA10") ? coupon : null);
+
+        SessionCart cart = new SessionCart();
+        cart.addItem(1L, "Cumin seeds", new BigDecimal("20.00"), 2);
+        cart.setAppliedCoupon(coupon);
+        cart.recalc();
+        assertThat(cart.getDiscount()).isEqualByComparingTo("4.00");
+
+        SessionCart back = (SessionCart) serializer.deserialize(serializer.serialize(cart));
+        back.addItem(2L, "Saffron", new BigDecimal("10.00"), 1);
+
+        assertThat(back.getAppliedCouponCode()).isEqualTo("JEERA10");
+        assertThat(back.getAppliedCoupon()).isSameAs(coupon);
+        assertThat(back.getDiscount()).isEqualByComparingTo("5.00");
+        assertThat(back.getGrandTotal()).isEqualByComparingTo("48.60");
+    }
+
+    @Test
+    void couponDeletedMeanwhileIsDropped() {
+        SessionCart cart = new SessionCart();
+        cart.addItem(1L, "Cumin seeds", new BigDecimal("20.00"), 1);
+        cart.setAppliedCoupon(coupon("GONE5", Coupon.Type.AMOUNT, "5"));
+
+        SessionCart back = (SessionCart) serializer.deserialize(serializer.serialize(cart));
+        back.recalc();
+
+        assertThat(back.getAppliedCoupon()).isNull();
+        assertThat(back.getAppliedCouponCode()).isNull();
+        assertThat(back.getDiscount()).isEqualByComparingTo("0");
+    }
+
+    private static Coupon coupon(String code, Coupon.Type type, String value) {
+        Coupon c = new Coupon();
+        c.setId(7L);
+        c.setCode(code);
+        c.setType(type);
+        c.setValue(new BigDecimal(value));
+        return c;
+    }
+}